@@ -6,6 +6,7 @@ import com.mojang.blaze3d.vertex.VertexConsumer;
 import com.tridevmc.architecture.core.math.IVector3;
 import com.tridevmc.architecture.core.math.integer.IVector3i;
 import com.tridevmc.architecture.core.model.Voxelizer;
+import com.tridevmc.architecture.core.model.mesh.IPolygon;
 import com.tridevmc.architecture.core.model.mesh.IPolygonData;
 import com.tridevmc.architecture.core.model.mesh.Quad;
 import com.tridevmc.architecture.core.model.mesh.Tri;
@@ -23,6 +24,8 @@ import net.minecraftforge.client.event.RenderLevelStageEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.loading.FMLEnvironment;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import static com.tridevmc.architecture.client.debug.ArchitectureDebugRenderTypes.ARCHITECTURE_DEBUG_LINE;
@@ -51,13 +54,17 @@ public class ArchitectureDebugEventListeners {
         var box = targetVoxelizer.getBoxForOffset(currentVoxelizationOffset.x(), currentVoxelizationOffset.y(), currentVoxelizationOffset.z());
         var point = box.center();
 
-        var meshBounds = targetVoxelizer.mesh().getBounds();
-        var fromPoint = IVector3.ofImmutable(meshBounds.minX() - 1, point.y(), point.z());
-        var rayDirection = IVector3.ofImmutable(1, 0, 0);
-        var ray = new Ray(fromPoint, rayDirection);
-        var hits = ray.intersectUnfiltered(targetVoxelizer.mesh())
-                .toList();
-        var matchingPolys = targetVoxelizer.mesh().getAABBTree().searchStream(new com.tridevmc.architecture.core.physics.AABB(fromPoint, fromPoint.add(rayDirection.mul(1000D)))).toList();
+        // Trace the same rays as the voxelizer does when checking if the point is inside the mesh.
+        var mesh = targetVoxelizer.mesh();
+        var origin = point.asImmutable();
+        var rays = List.of(new Ray(origin, IVector3.UNIT_X), new Ray(origin, IVector3.UNIT_NX));
+        var hits = new ArrayList<Ray.Hit>();
+        var matchingPolys = new ArrayList<IPolygon<?>>();
+        for (var ray : rays) {
+            var hit = mesh.closestHit(ray, Double.POSITIVE_INFINITY);
+            hits.add(hit != null ? hit : new Ray.Hit(ray, null, null));
+            mesh.getAABBTree().forEachAlongRay(ray, Double.POSITIVE_INFINITY, matchingPolys::add);
+        }
         var lineBuffer = bufferSource.getBuffer(ARCHITECTURE_DEBUG_LINE);
 
         RenderSystem.disableDepthTest();
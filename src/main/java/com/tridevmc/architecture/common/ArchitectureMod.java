@@ -26,6 +26,7 @@ package com.tridevmc.architecture.common;
 
 import com.tridevmc.architecture.client.proxy.ClientProxy;
 import com.tridevmc.architecture.common.proxy.CommonProxy;
+import com.tridevmc.architecture.core.model.VoxelCache;
 import com.tridevmc.compound.network.core.CompoundNetwork;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.DistExecutor;
@@ -33,6 +34,7 @@ import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
+import net.minecraftforge.fml.loading.FMLPaths;
 
 import static com.tridevmc.architecture.common.ArchitectureMod.MOD_ID;
 
@@ -48,6 +50,7 @@ public class ArchitectureMod {
     public ArchitectureMod() {
         ArchitectureMod.INSTANCE = this;
         PROXY = DistExecutor.runForDist(() -> ClientProxy::new, () -> CommonProxy::new);
+        VoxelCache.setDefault(new VoxelCache(FMLPaths.GAMEDIR.get().resolve(MOD_ID).resolve("voxel_cache")));
 
         FMLJavaModLoadingContext loadingContext = FMLJavaModLoadingContext.get();
         loadingContext.getModEventBus().addListener(this::onSetup);
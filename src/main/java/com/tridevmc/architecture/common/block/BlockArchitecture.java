@@ -2,9 +2,13 @@ package com.tridevmc.architecture.common.block;
 
 import com.google.common.collect.ImmutableList;
 import com.tridevmc.architecture.common.block.state.BlockStateArchitecture;
+import com.tridevmc.architecture.common.shape.ShapeIdentity;
+import com.tridevmc.architecture.common.shape.ShapeLOD;
 import com.tridevmc.architecture.core.ArchitectureLog;
 import com.tridevmc.architecture.core.math.ITrans3;
 import com.tridevmc.architecture.core.math.ITrans3Immutable;
+import com.tridevmc.architecture.core.model.BoxBudget;
+import com.tridevmc.architecture.core.model.FaceCoverage;
 import com.tridevmc.architecture.core.physics.AABB;
 import com.tridevmc.compound.core.reflect.WrappedField;
 import net.minecraft.core.BlockPos;
@@ -13,8 +17,10 @@ import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.StateDefinition;
 import net.minecraft.world.phys.shapes.CollisionContext;
+import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -86,6 +92,81 @@ public class BlockArchitecture extends Block {
         return CompletableFuture.completedFuture(DEFAULT_BOX);
     }
 
+    /**
+     * Gets the boxes for the given state at the given voxel resolution, with transformations applied.
+     * <p>
+     * The result of this method is cached within the state, it should not be called directly.
+     *
+     * @param state           the state to get the boxes for.
+     * @param blockResolution the resolution to get the boxes at, one of those in {@link #getLODForState(BlockStateArchitecture)}.
+     * @return the boxes for the given state.
+     */
+    public CompletableFuture<ImmutableList<AABB>> getBoxesForState(BlockStateArchitecture state, int blockResolution) {
+        return this.getBoxesForState(state);
+    }
+
+    /**
+     * Gets the boxes for the given state at the given voxel resolution, simplified to fit within the given budget, with
+     * transformations applied.
+     * <p>
+     * The result of this method is cached within the state, it should not be called directly.
+     *
+     * @param state           the state to get the boxes for.
+     * @param blockResolution the resolution to get the boxes at, one of those in {@link #getLODForState(BlockStateArchitecture)}.
+     * @param budget          the limits to simplify the boxes to, the boxes are exact if this is {@link BoxBudget#EXACT}.
+     * @return the boxes for the given state.
+     */
+    public CompletableFuture<ImmutableList<AABB>> getBoxesForState(BlockStateArchitecture state, int blockResolution, BoxBudget budget) {
+        return this.getBoxesForState(state, blockResolution);
+    }
+
+    /**
+     * Gets a cheap approximation of the boxes for the given state, with transformations applied.
+     * <p>
+     * Used in place of the boxes from {@link #getBoxesForState(BlockStateArchitecture, int, BoxBudget)} until they're
+     * ready, so it must return immediately. It should cover roughly the same space as the real boxes.
+     *
+     * @param state the state to get the boxes for.
+     * @return the approximate boxes for the given state.
+     */
+    public ImmutableList<AABB> getCoarseBoxesForState(BlockStateArchitecture state) {
+        return DEFAULT_BOX;
+    }
+
+    /**
+     * Gets the identity of the geometry of the given state, states with the same identity share their shapes rather than
+     * each computing their own.
+     *
+     * @param state the state to get the identity for.
+     * @return the identity, or null if the shapes of the state are never shared.
+     */
+    @Nullable
+    public ShapeIdentity getShapeIdentityForState(BlockStateArchitecture state) {
+        return null;
+    }
+
+    /**
+     * Gets how much of each face of the block the given state covers, used to cull the faces of neighbouring blocks, to
+     * block light and to decide what can be placed against the state.
+     *
+     * @param state the state to get the coverage for.
+     * @return a future for the coverage, or null to leave those to the generic checks vanilla does against the shape.
+     */
+    @Nullable
+    public CompletableFuture<FaceCoverage> getFaceCoverageForState(BlockStateArchitecture state) {
+        return null;
+    }
+
+    /**
+     * Gets the voxel resolutions used for the collision and outline shapes of the given state.
+     *
+     * @param state the state to get the LOD for.
+     * @return the LOD for the given state.
+     */
+    public ShapeLOD getLODForState(BlockStateArchitecture state) {
+        return ShapeLOD.FULL;
+    }
+
     private BlockStateArchitecture asArchitectureState(BlockState state) {
         if (state instanceof BlockStateArchitecture) {
             return (BlockStateArchitecture) state;
@@ -107,4 +188,28 @@ public class BlockArchitecture extends Block {
         }
     }
 
+    @SuppressWarnings("deprecation")
+    @Override
+    @NotNull
+    public VoxelShape getCollisionShape(@NotNull BlockState pState, @NotNull BlockGetter pLevel, @NotNull BlockPos pPos, @NotNull CollisionContext pContext) {
+        var state = this.asArchitectureState(pState);
+        if (state != null) {
+            return this.hasCollision ? state.getCollisionShape() : Shapes.empty();
+        } else {
+            return super.getCollisionShape(pState, pLevel, pPos, pContext);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    @NotNull
+    public VoxelShape getOcclusionShape(@NotNull BlockState pState, @NotNull BlockGetter pLevel, @NotNull BlockPos pPos) {
+        var state = this.asArchitectureState(pState);
+        if (state != null) {
+            return state.getOcclusionShape();
+        } else {
+            return super.getOcclusionShape(pState, pLevel, pPos);
+        }
+    }
+
 }
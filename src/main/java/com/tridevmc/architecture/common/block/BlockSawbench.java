@@ -67,7 +67,7 @@ public class BlockSawbench extends BlockArchitecture implements IElementProvider
     public CompletableFuture<ImmutableList<AABB>> getBoxesForState(BlockStateArchitecture state) {
         // The results of this are cached on the state object, so don't worry too much about performance.
         var transform = this.getTransformForState(state);
-        return MODEL.voxelizer().voxelize().thenApply(v -> v.stream().map(transform::transformAABB).collect(ImmutableList.toImmutableList()));
+        return MODEL.voxelizer().voxelize(transform).thenApply(ImmutableList::copyOf);
     }
 
     @Nullable
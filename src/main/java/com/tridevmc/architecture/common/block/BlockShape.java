@@ -5,11 +5,15 @@ import com.tridevmc.architecture.common.block.entity.BlockEntityShape;
 import com.tridevmc.architecture.common.block.state.BlockStateArchitecture;
 import com.tridevmc.architecture.common.block.state.BlockStateShape;
 import com.tridevmc.architecture.common.shape.EnumShape;
+import com.tridevmc.architecture.common.shape.ShapeIdentity;
+import com.tridevmc.architecture.common.shape.ShapeLOD;
 import com.tridevmc.architecture.common.shape.orientation.ShapeOrientation;
 import com.tridevmc.architecture.common.shape.placement.IShapePlacementLogic;
 import com.tridevmc.architecture.core.ArchitectureLog;
 import com.tridevmc.architecture.core.math.ITrans3;
-import com.tridevmc.architecture.core.model.Voxelizer;
+import com.tridevmc.architecture.core.model.BoxBudget;
+import com.tridevmc.architecture.core.model.FaceCoverage;
+import com.tridevmc.architecture.core.model.GridTransform;
 import com.tridevmc.architecture.core.model.mesh.IMesh;
 import com.tridevmc.architecture.core.model.mesh.IPart;
 import com.tridevmc.architecture.core.model.mesh.PolygonData;
@@ -134,18 +138,76 @@ public class BlockShape<T extends BlockShape<T>> extends BlockArchitecture imple
         return this.shape.getMesh();
     }
 
+    @Override
+    public ShapeLOD getLODForState(BlockStateArchitecture state) {
+        return this.shape.getLOD();
+    }
+
     @Override
     public CompletableFuture<ImmutableList<AABB>> getBoxesForState(BlockStateArchitecture state) {
+        return this.getBoxesForState(state, this.shape.getLOD().outline());
+    }
+
+    @Override
+    public CompletableFuture<ImmutableList<AABB>> getBoxesForState(BlockStateArchitecture state, int blockResolution) {
+        return this.getBoxesForState(state, blockResolution, BoxBudget.EXACT);
+    }
+
+    @Override
+    public CompletableFuture<ImmutableList<AABB>> getBoxesForState(BlockStateArchitecture state, int blockResolution, BoxBudget budget) {
         var shapeState = this.asShapeState(state);
         if (shapeState == null) {
             ArchitectureLog.error("BlockShape#getBoxesForState called with a non-shape state, this should not happen.");
             return CompletableFuture.completedFuture(DEFAULT_BOX);
         }
+        var voxelizer = this.shape.getVoxelizer(blockResolution);
+        var transform = this.getTransform(shapeState);
+        if (voxelizer == null) {
+            return CompletableFuture.completedFuture(DEFAULT_BOX.stream().map(transform::transformAABB).collect(ImmutableList.toImmutableList()));
+        }
+        // Orientations are applied to the voxel grid itself, so each one is only computed once per shape and resolution.
+        return voxelizer.voxelize(transform, blockResolution, budget).thenApply(ImmutableList::copyOf);
+    }
+
+    @Override
+    public ImmutableList<AABB> getCoarseBoxesForState(BlockStateArchitecture state) {
+        var shapeState = this.asShapeState(state);
+        if (shapeState == null) {
+            return DEFAULT_BOX;
+        }
+        // The bounds of the mesh are known as soon as it's loaded, long before the voxelizer is done with it.
+        var voxelizer = this.shape.getVoxelizer();
+        var bounds = voxelizer == null ? AABB.BLOCK_FULL : voxelizer.mesh().getBounds();
+        return ImmutableList.of(this.getTransform(shapeState).transformAABB(bounds));
+    }
+
+    @Nullable
+    @Override
+    public ShapeIdentity getShapeIdentityForState(BlockStateArchitecture state) {
+        var shapeState = this.asShapeState(state);
+        return shapeState == null ? null : ShapeIdentity.of(this.shape, this.getTransform(shapeState));
+    }
+
+    @Nullable
+    @Override
+    public CompletableFuture<FaceCoverage> getFaceCoverageForState(BlockStateArchitecture state) {
+        var shapeState = this.asShapeState(state);
+        if (shapeState == null) {
+            return null;
+        }
+        // Always read at the full resolution, a coarser grid is a hull and would cover more than the shape does.
+        var voxelizer = this.shape.getVoxelizer();
+        var gridTransform = voxelizer == null ? null : GridTransform.of(this.getTransform(shapeState), voxelizer.blockResolution());
+        if (gridTransform == null) {
+            // Without a grid to read the faces from, vanilla slices the shape itself.
+            return null;
+        }
+        return voxelizer.voxelizeSolidGrid(gridTransform).thenApply(FaceCoverage::of);
+    }
+
+    private ITrans3 getTransform(BlockStateShape state) {
         var transformationResolver = Optional.ofNullable(this.getShape().getTransformationResolver()).orElse(s -> ITrans3.ofIdentity());
-        var voxelizer = shape.getVoxelizer();
-        var transform = transformationResolver.resolve(shapeState);
-        var voxelsCompletableFuture = Optional.ofNullable(voxelizer).map(Voxelizer::voxelize).orElse(CompletableFuture.completedFuture(DEFAULT_BOX));
-        return voxelsCompletableFuture.thenApplyAsync(aabbs -> aabbs.stream().map(transform::transformAABB).collect(ImmutableList.toImmutableList()));
+        return transformationResolver.resolve(state);
     }
 
     @Nullable
@@ -170,6 +232,12 @@ public class BlockShape<T extends BlockShape<T>> extends BlockArchitecture imple
         ).applyToState(this.defaultBlockState());
     }
 
+    @Override
+    public boolean useShapeForLightOcclusion(BlockState state) {
+        // Light is blocked by the face coverage of the state once it's known, see BlockStateArchitecture.
+        return true;
+    }
+
     @Override
     public boolean hasDynamicShape() {
         // By returning true here we tell the game to generate a Cache object on our state.
@@ -1,29 +1,46 @@
 package com.tridevmc.architecture.common.block.state;
 
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.mojang.serialization.MapCodec;
 import com.tridevmc.architecture.common.block.BlockArchitecture;
+import com.tridevmc.architecture.common.shape.ShapeLOD;
+import com.tridevmc.architecture.common.utils.VoxelShapeBuilder;
 import com.tridevmc.architecture.core.ArchitectureLog;
 import com.tridevmc.architecture.core.math.ITrans3;
 import com.tridevmc.architecture.core.math.ITrans3Immutable;
+import com.tridevmc.architecture.core.model.BoxBudget;
+import com.tridevmc.architecture.core.model.FaceCoverage;
+import com.tridevmc.architecture.core.model.mesh.FaceDirection;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.block.SupportType;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.Property;
 import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.concurrent.CompletableFuture;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 
 public class BlockStateArchitecture extends BlockState {
 
     private CachedProperties cachedProperties;
+    // Built on the first query for a shape or by the ShapePrewarmer, most states never appear in a world.
+    private volatile Map<ShapeLOD.Purpose, ProgressiveShape> cachedShapes;
+    private volatile FaceOcclusion cachedFaceOcclusion;
 
     private record CachedProperties(
-            ITrans3Immutable cachedTransform,
-            CompletableFuture<VoxelShape> cachedShape
+            ITrans3Immutable cachedTransform
     ) {
     }
 
+    private record ShapeKey(int resolution, BoxBudget budget) {
+    }
+
     protected BlockStateArchitecture(BlockArchitecture block,
                                    ImmutableMap<Property<?>, Comparable<?>> properties,
                                    MapCodec<BlockState> codec) {
@@ -39,17 +56,81 @@ public class BlockStateArchitecture extends BlockState {
     }
 
     protected void postConstruct() {
-        this.cachedProperties = new CachedProperties(
-                this.self().getTransformForState(this),
-                this.self().getBoxesForState(this).thenApply(boxes -> {
-                    var shape = Shapes.empty();
-                    for (var box : boxes) {
-                        shape = Shapes.or(shape, Shapes.create(box.toMC()));
-                    }
-                    ArchitectureLog.debug("Finished creating shape for state: {}", this.toString());
-                    return shape;
-                })
-        );
+        this.cachedProperties = new CachedProperties(this.self().getTransformForState(this));
+    }
+
+    /**
+     * Starts computing the shapes of this state if that hasn't been done yet, without waiting for them to finish.
+     * <p>
+     * Happens automatically on the first query for a shape, calling this ahead of time just moves that work off the
+     * thread making the query.
+     */
+    public void prepareShapes() {
+        this.getShapes();
+    }
+
+    private Map<ShapeLOD.Purpose, ProgressiveShape> getShapes() {
+        var shapes = this.cachedShapes;
+        if (shapes == null) {
+            synchronized (this) {
+                shapes = this.cachedShapes;
+                if (shapes == null) {
+                    shapes = this.createShapes();
+                    this.cachedShapes = shapes;
+                }
+            }
+        }
+        return shapes;
+    }
+
+    private synchronized Map<ShapeLOD.Purpose, ProgressiveShape> resetShapes(Map<ShapeLOD.Purpose, ProgressiveShape> cancelled) {
+        // Another thread may have already replaced them.
+        if (this.cachedShapes == cancelled) {
+            this.cachedShapes = this.createShapes();
+        }
+        return this.cachedShapes;
+    }
+
+    private Map<ShapeLOD.Purpose, ProgressiveShape> createShapes() {
+        var lod = this.self().getLODForState(this);
+        var identity = this.self().getShapeIdentityForState(this);
+        // Every purpose starts out with the same approximation until its own shape is ready, unless it shares a shape.
+        var coarse = Suppliers.memoize(() -> new VoxelShapeBuilder().addAll(this.self().getCoarseBoxesForState(this)).build());
+        // Purposes that share a resolution and budget share a shape, so each distinct shape is only built once.
+        var shapesByKey = new HashMap<ShapeKey, ProgressiveShape>();
+        var shapes = new EnumMap<ShapeLOD.Purpose, ProgressiveShape>(ShapeLOD.Purpose.class);
+        for (var purpose : ShapeLOD.Purpose.values()) {
+            shapes.put(purpose, shapesByKey.computeIfAbsent(new ShapeKey(lod.resolution(purpose), lod.budget(purpose)),
+                    key -> ShapeInterner.intern(identity, key.resolution(), key.budget(),
+                            () -> new ProgressiveShape(coarse.get(), this.self().getBoxesForState(this, key.resolution(), key.budget()).thenApply(boxes -> {
+                                var shape = new VoxelShapeBuilder().addAll(boxes).build();
+                                ArchitectureLog.debug("Finished creating shape at resolution {} for state: {}", key.resolution(), this.toString());
+                                return shape;
+                            })))));
+        }
+        return shapes;
+    }
+
+    private FaceOcclusion getFaceOcclusion() {
+        var occlusion = this.cachedFaceOcclusion;
+        if (occlusion == null || occlusion.isCancelled()) {
+            synchronized (this) {
+                occlusion = this.cachedFaceOcclusion;
+                if (occlusion == null || occlusion.isCancelled()) {
+                    occlusion = this.createFaceOcclusion();
+                    this.cachedFaceOcclusion = occlusion;
+                }
+            }
+        }
+        return occlusion;
+    }
+
+    private FaceOcclusion createFaceOcclusion() {
+        var coverage = this.self().getFaceCoverageForState(this);
+        if (coverage == null) {
+            return FaceOcclusion.NONE;
+        }
+        return ShapeInterner.intern(this.self().getShapeIdentityForState(this), () -> new FaceOcclusion(coverage));
     }
 
     private BlockArchitecture self() {
@@ -61,9 +142,90 @@ public class BlockStateArchitecture extends BlockState {
         return this.cachedProperties.cachedTransform;
     }
 
+    /**
+     * Gets the shape used for the selection outline of this state.
+     *
+     * @return The outline shape.
+     */
     @NotNull
     public VoxelShape getShape() {
-        return this.cachedProperties.cachedShape.join();
+        return this.getShape(ShapeLOD.Purpose.OUTLINE);
+    }
+
+    /**
+     * Gets the shape used for entity collision with this state.
+     *
+     * @return The collision shape.
+     */
+    @NotNull
+    public VoxelShape getCollisionShape() {
+        return this.getShape(ShapeLOD.Purpose.COLLISION);
+    }
+
+    @NotNull
+    private VoxelShape getShape(ShapeLOD.Purpose purpose) {
+        var shapes = this.getShapes();
+        var shape = shapes.get(purpose);
+        if (shape.isCancelled()) {
+            // Voxelization was cancelled, eg by the server stopping, so start again and use the approximation meanwhile.
+            shape = this.resetShapes(shapes).get(purpose);
+        }
+        // Never waits on voxelization, states whose shape is still being computed use an approximation until it's done.
+        return shape.get();
+    }
+
+    /**
+     * Gets the shape used to decide which faces of neighbouring blocks this state hides.
+     *
+     * @return The outline shape once it's exact, otherwise an empty shape so nothing is hidden by an approximation.
+     */
+    @NotNull
+    public VoxelShape getOcclusionShape() {
+        var shape = this.getShapes().get(ShapeLOD.Purpose.OUTLINE);
+        return shape.isRefined() ? shape.get() : Shapes.empty();
+    }
+
+    @NotNull
+    @Override
+    public VoxelShape getFaceOcclusionShape(@NotNull BlockGetter level, @NotNull BlockPos pos, @NotNull Direction direction) {
+        var occlusion = this.getFaceOcclusion();
+        if (occlusion == FaceOcclusion.NONE) {
+            return super.getFaceOcclusionShape(level, pos, direction);
+        }
+        // Nothing is culled against this state until the coverage is known.
+        var shape = occlusion.getFaceShape(direction);
+        return shape == null ? Shapes.empty() : shape;
+    }
+
+    @Override
+    public boolean useShapeForLightOcclusion() {
+        var occlusion = this.getFaceOcclusion();
+        if (occlusion == FaceOcclusion.NONE) {
+            return super.useShapeForLightOcclusion();
+        }
+        // Until the coverage is known the light engine treats the state like any block that doesn't use its shape,
+        // instead of reading an empty shape from it. Mod setup waits for the coverage of bundled shapes, see
+        // ShapeMeshes#awaitBundledCoverage, others only occlude light in chunks lit after their coverage is known.
+        return occlusion.getCoverage() != null;
+    }
+
+    @Override
+    public boolean isFaceSturdy(@NotNull BlockGetter level, @NotNull BlockPos pos, @NotNull Direction direction, @NotNull SupportType supportType) {
+        var coverage = this.getFaceOcclusion().getCoverage();
+        if (coverage == null) {
+            return super.isFaceSturdy(level, pos, direction, supportType);
+        }
+        var face = FaceDirection.fromDirection(direction);
+        return switch (supportType) {
+            case FULL -> coverage.getCoverage(face) == FaceCoverage.Coverage.FULL;
+            // The post vanilla checks for in Block.canSupportCenter, eg for lanterns and bells.
+            case CENTER -> coverage.covers(face, 7, 0, 7, 9, 10, 9);
+            // The edges of the face around a 12x12 hole, eg for walls and fences.
+            case RIGID -> coverage.covers(face, 0, 0, 0, 2, 16, 16)
+                    && coverage.covers(face, 14, 0, 0, 16, 16, 16)
+                    && coverage.covers(face, 0, 0, 0, 16, 16, 2)
+                    && coverage.covers(face, 0, 0, 14, 16, 16, 16);
+        };
     }
 
 
@@ -0,0 +1,125 @@
+package com.tridevmc.architecture.common.block.state;
+
+import com.tridevmc.architecture.common.utils.VoxelShapeBuilder;
+import com.tridevmc.architecture.core.ArchitectureLog;
+import com.tridevmc.architecture.core.model.FaceCoverage;
+import com.tridevmc.architecture.core.model.mesh.FaceDirection;
+import com.tridevmc.architecture.core.physics.AABB;
+import net.minecraft.core.Direction;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The coverage of each face of a block by a state, along with the face shapes vanilla culls neighbouring faces and
+ * blocks light with, filled in once the voxel grid they're derived from is ready.
+ * <p>
+ * The face shapes are built once from the 16x16 bitmaps of the {@link FaceCoverage}, so vanilla never has to slice the
+ * shape of the state itself. Full and empty faces use the shared {@link Shapes#block()} and {@link Shapes#empty()}.
+ */
+final class FaceOcclusion {
+
+    /**
+     * Used for blocks that don't provide a coverage, vanilla's generic shape checks are used for them instead.
+     */
+    static final FaceOcclusion NONE = new FaceOcclusion(CompletableFuture.completedFuture(null));
+
+    private volatile FaceCoverage coverage;
+    private volatile VoxelShape[] faceShapes;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a new face occlusion.
+     *
+     * @param coverage A future that completes with the coverage of the state.
+     */
+    FaceOcclusion(@NotNull CompletableFuture<FaceCoverage> coverage) {
+        coverage.whenComplete((c, e) -> {
+            if (e != null) {
+                if (e instanceof CancellationException || e.getCause() instanceof CancellationException) {
+                    this.cancelled = true;
+                } else {
+                    ArchitectureLog.error("Failed to find face coverage, neighbouring faces won't be culled", e);
+                }
+            } else if (c != null) {
+                var faceShapes = new VoxelShape[Direction.values().length];
+                for (var direction : Direction.values()) {
+                    faceShapes[direction.ordinal()] = createFaceShape(c, FaceDirection.fromDirection(direction));
+                }
+                this.faceShapes = faceShapes;
+                this.coverage = c;
+            }
+        });
+    }
+
+    /**
+     * Gets the coverage of the state.
+     *
+     * @return The coverage, or null if it isn't ready yet.
+     */
+    @Nullable
+    FaceCoverage getCoverage() {
+        return this.coverage;
+    }
+
+    /**
+     * Gets the shape of the state on the given face, stretched across the whole block like {@link Shapes#getFaceShape}.
+     *
+     * @param direction The face to get the shape of.
+     * @return The shape, or null if the coverage isn't ready yet.
+     */
+    @Nullable
+    VoxelShape getFaceShape(@NotNull Direction direction) {
+        var faceShapes = this.faceShapes;
+        return faceShapes == null ? null : faceShapes[direction.ordinal()];
+    }
+
+    /**
+     * Checks if finding the coverage was cancelled before it finished, it has to be requested again to ever be ready.
+     *
+     * @return True if the coverage was cancelled.
+     */
+    boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    private static VoxelShape createFaceShape(FaceCoverage coverage, FaceDirection face) {
+        switch (coverage.getCoverage(face)) {
+            case FULL:
+                return Shapes.block();
+            case EMPTY:
+                return Shapes.empty();
+        }
+        var uAxis = FaceCoverage.uAxis(face);
+        var vAxis = FaceCoverage.vAxis(face);
+        var builder = new VoxelShapeBuilder();
+        var size = (double) FaceCoverage.SIZE;
+        for (var u = 0; u < FaceCoverage.SIZE; u++) {
+            var v = 0;
+            while (v < FaceCoverage.SIZE) {
+                if (!coverage.isCovered(face, u, v)) {
+                    v++;
+                    continue;
+                }
+                var start = v;
+                while (v < FaceCoverage.SIZE && coverage.isCovered(face, u, v)) {
+                    v++;
+                }
+                // A run of covered cells, spanning the whole block along the normal.
+                var min = new double[3];
+                var max = new double[]{1, 1, 1};
+                min[uAxis] = u / size;
+                max[uAxis] = (u + 1) / size;
+                min[vAxis] = start / size;
+                max[vAxis] = v / size;
+                builder.add(new AABB(min[0], min[1], min[2], max[0], max[1], max[2]));
+            }
+        }
+        return builder.build();
+    }
+
+}
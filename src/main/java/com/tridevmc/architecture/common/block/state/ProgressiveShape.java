@@ -0,0 +1,75 @@
+package com.tridevmc.architecture.common.block.state;
+
+import com.tridevmc.architecture.core.ArchitectureLog;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A shape that starts out as a cheap approximation and is swapped for the exact shape once voxelization finishes.
+ * <p>
+ * Shapes are queried from the server tick and the render thread, neither of which can wait on voxelization. Reading a
+ * progressive shape never blocks, it returns whichever shape is current, and the exact shape replaces the approximation
+ * in a single write so a reader never sees anything in between.
+ */
+final class ProgressiveShape {
+
+    private volatile VoxelShape current;
+    private volatile boolean cancelled;
+    private volatile boolean refined;
+
+    /**
+     * Creates a new progressive shape.
+     *
+     * @param coarse  The shape to use until the refined shape is ready.
+     * @param refined A future that completes with the exact shape, if it fails the coarse shape is kept.
+     */
+    ProgressiveShape(@NotNull VoxelShape coarse, @NotNull CompletableFuture<VoxelShape> refined) {
+        this.current = coarse;
+        // Runs immediately if the shape is already done, eg when it was loaded from the voxel bundle.
+        refined.whenComplete((shape, e) -> {
+            if (e != null) {
+                if (e instanceof CancellationException || e.getCause() instanceof CancellationException) {
+                    this.cancelled = true;
+                } else {
+                    ArchitectureLog.error("Failed to refine shape, keeping the approximation", e);
+                }
+            } else {
+                this.current = shape;
+                this.refined = true;
+            }
+        });
+    }
+
+    /**
+     * Gets the current shape, without waiting for the refined shape.
+     *
+     * @return The refined shape if it's ready, otherwise the coarse shape.
+     */
+    @NotNull
+    VoxelShape get() {
+        return this.current;
+    }
+
+    /**
+     * Checks if the refined shape has replaced the approximation.
+     *
+     * @return True if {@link #get()} returns the refined shape.
+     */
+    boolean isRefined() {
+        return this.refined;
+    }
+
+    /**
+     * Checks if computing the refined shape was cancelled before it finished, eg by the voxelizer shutting down with the
+     * server. The shape has to be requested again to ever be refined.
+     *
+     * @return True if the refined shape was cancelled.
+     */
+    boolean isCancelled() {
+        return this.cancelled;
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.tridevmc.architecture.common.block.state;
+
+import com.tridevmc.architecture.common.block.BlockArchitecture;
+import com.tridevmc.architecture.common.shape.ShapeIdentity;
+import com.tridevmc.architecture.core.ArchitectureLog;
+import com.tridevmc.architecture.core.model.BoxBudget;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares shapes between block states with the same {@link ShapeIdentity}, so equivalent states use one future and one
+ * {@link net.minecraft.world.phys.shapes.VoxelShape} instead of computing their own copy.
+ */
+public final class ShapeInterner {
+
+    private static final Map<Key, ProgressiveShape> SHAPES = new ConcurrentHashMap<>();
+    private static final Map<ShapeIdentity, FaceOcclusion> FACE_OCCLUSIONS = new ConcurrentHashMap<>();
+
+    private ShapeInterner() {
+    }
+
+    /**
+     * Gets the shared shape for the given identity, resolution and budget, creating it if there isn't one yet.
+     *
+     * @param identity   The identity of the state the shape is for, or null if it can't be shared.
+     * @param resolution The resolution of the shape.
+     * @param budget     The budget the shape is simplified to.
+     * @param factory    Creates the shape if there's no shared one to use.
+     * @return The shared shape, or a new one if the identity is null.
+     */
+    static ProgressiveShape intern(@Nullable ShapeIdentity identity, int resolution, @NotNull BoxBudget budget, @NotNull Supplier<ProgressiveShape> factory) {
+        if (identity == null) {
+            return factory.get();
+        }
+        // Shapes that were cancelled are replaced, so every state sharing them gets the new one.
+        return SHAPES.compute(new Key(identity, resolution, budget),
+                (key, existing) -> existing == null || existing.isCancelled() ? factory.get() : existing);
+    }
+
+    /**
+     * Gets the shared face occlusion for the given identity, creating it if there isn't one yet.
+     *
+     * @param identity The identity of the state the face occlusion is for, or null if it can't be shared.
+     * @param factory  Creates the face occlusion if there's no shared one to use.
+     * @return The shared face occlusion, or a new one if the identity is null.
+     */
+    static FaceOcclusion intern(@Nullable ShapeIdentity identity, @NotNull Supplier<FaceOcclusion> factory) {
+        if (identity == null) {
+            return factory.get();
+        }
+        return FACE_OCCLUSIONS.compute(identity, (key, existing) -> existing == null || existing.isCancelled() ? factory.get() : existing);
+    }
+
+    /**
+     * Logs how many distinct shapes the given states share between them.
+     *
+     * @param states The states to check.
+     */
+    public static void logDeduplication(@NotNull Collection<BlockStateArchitecture> states) {
+        var identities = new HashSet<ShapeIdentity>();
+        var unshared = 0;
+        for (var state : states) {
+            var identity = ((BlockArchitecture) state.getBlock()).getShapeIdentityForState(state);
+            if (identity == null) {
+                unshared++;
+            } else {
+                identities.add(identity);
+            }
+        }
+        var distinct = identities.size() + unshared;
+        ArchitectureLog.info("{} block states share {} distinct shapes, a deduplication ratio of {}",
+                states.size(), distinct, "%.1f:1".formatted(distinct == 0 ? 1D : (double) states.size() / distinct));
+    }
+
+    private record Key(ShapeIdentity identity, int resolution, BoxBudget budget) {
+    }
+
+}
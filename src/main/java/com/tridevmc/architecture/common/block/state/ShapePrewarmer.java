@@ -0,0 +1,102 @@
+package com.tridevmc.architecture.common.block.state;
+
+import com.tridevmc.architecture.core.ArchitectureLog;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepares the shapes of block states in the background before they're first queried, most used states first.
+ * <p>
+ * States only compute their shapes when first asked for one, see {@link BlockStateArchitecture#prepareShapes()}. Left to
+ * that, the first query for a state pays for setting up its shapes and only gets an approximation back. Chunks report the
+ * states they contain as they load with {@link #observe(BlockStateArchitecture, int)}, and a single background thread
+ * prepares those states in order of how many times they've been seen, so the blocks a world is built from are refined
+ * before the odd one out. States that never appear in a loaded chunk are never prepared.
+ * <p>
+ * Can be turned off with the {@value #ENABLED_PROPERTY} system property, shapes are then only prepared on first query.
+ */
+public final class ShapePrewarmer {
+
+    public static final String ENABLED_PROPERTY = "architecturecraft.shapes.prewarm";
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+    private static final Map<BlockStateArchitecture, LongAdder> USES = new ConcurrentHashMap<>();
+    private static final Set<BlockStateArchitecture> PENDING = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean SCHEDULED = new AtomicBoolean();
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        var thread = new Thread(r, "Architecture-Shape-Prewarmer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private ShapePrewarmer() {
+    }
+
+    /**
+     * Records that the given state was seen, and queues its shapes to be prepared if they haven't been already.
+     *
+     * @param state The state that was seen.
+     * @param count The number of times it was seen, eg the number of blocks in a chunk with this state.
+     */
+    public static void observe(@NotNull BlockStateArchitecture state, int count) {
+        if (!ENABLED) {
+            return;
+        }
+        var firstSighting = new boolean[1];
+        USES.computeIfAbsent(state, s -> {
+            firstSighting[0] = true;
+            return new LongAdder();
+        }).add(count);
+        // Only the first sighting queues the state, later ones just move it up the queue if it's still waiting.
+        if (firstSighting[0] && PENDING.add(state) && SCHEDULED.compareAndSet(false, true)) {
+            EXECUTOR.execute(ShapePrewarmer::drain);
+        }
+    }
+
+    /**
+     * Forgets every state seen so far, eg when the world they were seen in is unloaded.
+     */
+    public static void reset() {
+        USES.clear();
+        PENDING.clear();
+    }
+
+    private static void drain() {
+        try {
+            while (!PENDING.isEmpty()) {
+                // Take everything queued so far, most used first. States seen while this batch runs go in the next one.
+                var batch = new ArrayList<>(PENDING);
+                PENDING.removeAll(batch);
+                batch.sort(Comparator.<BlockStateArchitecture>comparingLong(ShapePrewarmer::uses).reversed());
+                for (var state : batch) {
+                    state.prepareShapes();
+                }
+                ArchitectureLog.debug("Prepared shapes for {} block states", batch.size());
+            }
+        } catch (Exception e) {
+            ArchitectureLog.error("Failed to prepare block state shapes", e);
+        } finally {
+            SCHEDULED.set(false);
+            // Catch anything queued between the last check and clearing the flag.
+            if (!PENDING.isEmpty() && SCHEDULED.compareAndSet(false, true)) {
+                EXECUTOR.execute(ShapePrewarmer::drain);
+            }
+        }
+    }
+
+    private static long uses(BlockStateArchitecture state) {
+        var uses = USES.get(state);
+        return uses == null ? 0 : uses.sum();
+    }
+
+}
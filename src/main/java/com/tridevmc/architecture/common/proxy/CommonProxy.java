@@ -26,10 +26,19 @@ package com.tridevmc.architecture.common.proxy;
 
 import com.google.common.collect.Maps;
 import com.tridevmc.architecture.common.ArchitectureMod;
+import com.tridevmc.architecture.common.block.state.BlockStateArchitecture;
+import com.tridevmc.architecture.common.block.state.ShapeInterner;
+import com.tridevmc.architecture.common.block.state.ShapePrewarmer;
+import com.tridevmc.architecture.common.shape.ShapeMeshes;
 import com.tridevmc.architecture.core.ArchitectureLog;
+import com.tridevmc.architecture.core.model.VoxelizationScheduler;
 import com.tridevmc.architecture.legacy.client.render.model.objson.LegacyOBJSON;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.loading.progress.StartupNotificationManager;
 
@@ -40,13 +49,46 @@ public class CommonProxy {
     private final Map<ResourceLocation, LegacyOBJSON> modelCache = Maps.newHashMap();
 
     public void setup(FMLCommonSetupEvent e) {
-
+        // Setup runs off the game threads, so this is the place to wait for what has to be known before a world is lit.
+        ShapeMeshes.awaitBundledCoverage();
+        var states = ArchitectureMod.CONTENT.blockShapes.values().stream()
+                .flatMap(block -> block.getStateDefinition().getPossibleStates().stream())
+                .filter(BlockStateArchitecture.class::isInstance)
+                .map(BlockStateArchitecture.class::cast)
+                .toList();
+        ShapeInterner.logDeduplication(states);
     }
 
     public void registerHandlers() {
         MinecraftForge.EVENT_BUS.register(this);
     }
 
+    @SubscribeEvent
+    public void onServerStopped(ServerStoppedEvent e) {
+        // Stop the voxelization threads with the server, they're started again if another shape needs voxelizing.
+        VoxelizationScheduler.shutdown();
+        ShapePrewarmer.reset();
+    }
+
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load e) {
+        if (!(e.getChunk() instanceof LevelChunk chunk)) {
+            return;
+        }
+        // Queue the shapes of every state in the chunk, so they're ready by the time anything collides with them.
+        for (var section : chunk.getSections()) {
+            var states = section.getStates();
+            if (section.hasOnlyAir() || !states.maybeHas(s -> s instanceof BlockStateArchitecture)) {
+                continue;
+            }
+            states.count((state, count) -> {
+                if (state instanceof BlockStateArchitecture architectureState) {
+                    ShapePrewarmer.observe(architectureState, count);
+                }
+            });
+        }
+    }
+
     public void registerCustomRenderers() {
     }
 
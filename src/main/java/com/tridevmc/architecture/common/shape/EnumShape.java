@@ -39,27 +39,27 @@ public enum EnumShape {
     CYLINDER_LARGE_QUARTER("cylinder_large_quarter", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
     ANTICYLINDER_LARGE_QUARTER("anticylinder_large_quarter", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
     PILLAR("pillar", ShapePlacementLogicOnAxis.INSTANCE, ShapeTransformationResolverOnAxis.INSTANCE),
-    POST("post", ShapePlacementLogicOnAxis.INSTANCE, ShapeTransformationResolverOnAxis.INSTANCE),
-    POLE("pole", ShapePlacementLogicOnAxis.INSTANCE, ShapeTransformationResolverOnAxis.INSTANCE),
+    POST("post", ShapePlacementLogicOnAxis.INSTANCE, ShapeTransformationResolverOnAxis.INSTANCE, ShapeLOD.FULL),
+    POLE("pole", ShapePlacementLogicOnAxis.INSTANCE, ShapeTransformationResolverOnAxis.INSTANCE, ShapeLOD.FULL),
 
     BEVELLED_OUTER_CORNER("bevelled_outer_corner", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
     BEVELLED_INNER_CORNER("bevelled_inner_corner", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
 
     PILLAR_BASE("pillar_base", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
     DORIC_CAPITAL("doric_capital", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
-    IONIC_CAPITAL("ionic_capital", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
-    CORINTHIAN_CAPITAL("corinthian_capital", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
+    IONIC_CAPITAL("ionic_capital", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE, ShapeLOD.DEFAULT),
+    CORINTHIAN_CAPITAL("corinthian_capital", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE, ShapeLOD.DEFAULT),
     DORIC_TRIGLYPH("doric_triglyph", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
     DORIC_TRIGLYPH_CORNER("doric_triglyph_corner", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
     DORIC_METOPE("doric_metope", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
     ARCHITRAVE("architrave", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
     ARCHITRAVE_CORNER("architrave_corner", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
 
-    WINDOW_FRAME("window_frame", null, null),
-    WINDOW_CORNER("window_corner", null, null),
-    WINDOW_MULLION("window_mullion", null, null),
-    WINDOW_SMART("window_smart", new ShapePlacementLogicWindow<>(), (s) -> ITrans3.ofIdentity()), // TODO: Use window class for placement logic instead of empty diamond
-    WINDOW_MULLION_SMART("window_mullion_smart", new ShapePlacementLogicWindow<>(), (s) -> ITrans3.ofIdentity()), // TODO: Use window class for placement logic instead of empty diamond
+    WINDOW_FRAME("window_frame", null, null, ShapeLOD.FULL),
+    WINDOW_CORNER("window_corner", null, null, ShapeLOD.FULL),
+    WINDOW_MULLION("window_mullion", null, null, ShapeLOD.FULL),
+    WINDOW_SMART("window_smart", new ShapePlacementLogicWindow<>(), (s) -> ITrans3.ofIdentity(), ShapeLOD.FULL), // TODO: Use window class for placement logic instead of empty diamond
+    WINDOW_MULLION_SMART("window_mullion_smart", new ShapePlacementLogicWindow<>(), (s) -> ITrans3.ofIdentity(), ShapeLOD.FULL), // TODO: Use window class for placement logic instead of empty diamond
 
     SPHERE_FULL("sphere_full", ShapePlacementLogicStatic.INSTANCE, (s) -> ITrans3.ofIdentity()),
     SPHERE_HALF("sphere_half", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
@@ -83,7 +83,7 @@ public enum EnumShape {
     CORNICE_VALLEY("cornice_valley", null, null),
     CORNICE_BOTTOM("cornice_bottom", null, null),
 
-    CLADDING_SHEET("cladding_sheet", null, null),
+    CLADDING_SHEET("cladding_sheet", null, null, ShapeLOD.FULL),
 
     ARCH_D1("arch_d1", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
     ARCH_D2("arch_d2", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
@@ -94,38 +94,38 @@ public enum EnumShape {
     ARCH_D4B("arch_d4b", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
     ARCH_D4C("arch_d4c", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
 
-    BANISTER_PLAIN_BOTTOM("banister_plain_bottom", null, null),
-    BANISTER_PLAIN("banister_plain", null, null),
-    BANISTER_PLAIN_TOP("banister_plain_top", null, null),
+    BANISTER_PLAIN_BOTTOM("banister_plain_bottom", null, null, ShapeLOD.FULL),
+    BANISTER_PLAIN("banister_plain", null, null, ShapeLOD.FULL),
+    BANISTER_PLAIN_TOP("banister_plain_top", null, null, ShapeLOD.FULL),
 
-    BALUSTRADE_FANCY("balustrade_fancy", null, null),
-    BALUSTRADE_FANCY_CORNER("balustrade_fancy_corner", null, null),
-    BALUSTRADE_FANCY_WITH_NEWEL("balustrade_fancy_with_newel", null, null),
-    BALUSTRADE_FANCY_NEWEL("balustrade_fancy_newel", null, null),
+    BALUSTRADE_FANCY("balustrade_fancy", null, null, ShapeLOD.FULL),
+    BALUSTRADE_FANCY_CORNER("balustrade_fancy_corner", null, null, ShapeLOD.FULL),
+    BALUSTRADE_FANCY_WITH_NEWEL("balustrade_fancy_with_newel", null, null, ShapeLOD.FULL),
+    BALUSTRADE_FANCY_NEWEL("balustrade_fancy_newel", null, null, ShapeLOD.FULL),
 
-    BALUSTRADE_PLAIN("balustrade_plain", null, null),
-    BALUSTRADE_PLAIN_OUTER_CORNER("balustrade_plain_outer_corner", null, null),
-    BALUSTRADE_PLAIN_WITH_NEWEL("balustrade_plain_with_newel", null, null),
+    BALUSTRADE_PLAIN("balustrade_plain", null, null, ShapeLOD.FULL),
+    BALUSTRADE_PLAIN_OUTER_CORNER("balustrade_plain_outer_corner", null, null, ShapeLOD.FULL),
+    BALUSTRADE_PLAIN_WITH_NEWEL("balustrade_plain_with_newel", null, null, ShapeLOD.FULL),
 
-    BANISTER_PLAIN_END("banister_plain_end", null, null),
+    BANISTER_PLAIN_END("banister_plain_end", null, null, ShapeLOD.FULL),
 
-    BANISTER_FANCY_NEWEL_TALL("banister_fancy_newel_tall", null, null),
+    BANISTER_FANCY_NEWEL_TALL("banister_fancy_newel_tall", null, null, ShapeLOD.FULL),
 
-    BALUSTRADE_PLAIN_INNER_CORNER("balustrade_plain_inner_corner", null, null),
-    BALUSTRADE_PLAIN_END("balustrade_plain_end", null, null),
+    BALUSTRADE_PLAIN_INNER_CORNER("balustrade_plain_inner_corner", null, null, ShapeLOD.FULL),
+    BALUSTRADE_PLAIN_END("balustrade_plain_end", null, null, ShapeLOD.FULL),
 
-    BANISTER_FANCY_BOTTOM("banister_fancy_bottom", null, null),
-    BANISTER_FANCY("banister_fancy", null, null),
-    BANISTER_FANCY_TOP("banister_fancy_top", null, null),
-    BANISTER_FANCY_END("banister_fancy_end", null, null),
+    BANISTER_FANCY_BOTTOM("banister_fancy_bottom", null, null, ShapeLOD.FULL),
+    BANISTER_FANCY("banister_fancy", null, null, ShapeLOD.FULL),
+    BANISTER_FANCY_TOP("banister_fancy_top", null, null, ShapeLOD.FULL),
+    BANISTER_FANCY_END("banister_fancy_end", null, null, ShapeLOD.FULL),
 
-    BANISTER_PLAIN_INNER_CORNER("banister_plain_inner_corner", null, null),
+    BANISTER_PLAIN_INNER_CORNER("banister_plain_inner_corner", null, null, ShapeLOD.FULL),
 
-    SLAB("slab", ShapePlacementLogicSlab.INSTANCE, ShapeTransformationResolverSlab.INSTANCE),
-    STAIRS("stairs", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
-    STAIRS_OUTER_CORNER("stairs_outer_corner", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
-    STAIRS_INNER_CORNER("stairs_inner_corner", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE),
-    STAIRS_SMART("stairs_smart", null, null);
+    SLAB("slab", ShapePlacementLogicSlab.INSTANCE, ShapeTransformationResolverSlab.INSTANCE, ShapeLOD.COARSE),
+    STAIRS("stairs", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE, ShapeLOD.COARSE),
+    STAIRS_OUTER_CORNER("stairs_outer_corner", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE, ShapeLOD.COARSE),
+    STAIRS_INNER_CORNER("stairs_inner_corner", ShapePlacementLogicPointedWithSpin.INSTANCE, ShapeTransformationResolverPointedWithSpin.INSTANCE, ShapeLOD.COARSE),
+    STAIRS_SMART("stairs_smart", null, null, ShapeLOD.COARSE);
 
 
     private static final Map<String, EnumShape> NAME_LOOKUP = Arrays.stream(values())
@@ -137,14 +137,21 @@ public enum EnumShape {
     private final ResourceLocation id;
     private final IShapePlacementLogic<?> placementLogic;
     private final IShapeTransformationResolver transformationResolver;
+    private final ShapeLOD lod;
 
     EnumShape(String name, IShapePlacementLogic<?> placementLogic,
               IShapeTransformationResolver transformationResolver) {
+        this(name, placementLogic, transformationResolver, ShapeLOD.DEFAULT);
+    }
+
+    EnumShape(String name, IShapePlacementLogic<?> placementLogic,
+              IShapeTransformationResolver transformationResolver, ShapeLOD lod) {
         this.name = name;
         this.localizationKey = String.format("shape.%s.%s", ArchitectureMod.MOD_ID, name);
         this.id = new ResourceLocation(ArchitectureMod.MOD_ID, String.format("shape/%s", name));
         this.placementLogic = placementLogic;
         this.transformationResolver = transformationResolver;
+        this.lod = lod;
     }
 
     /**
@@ -204,4 +211,23 @@ public enum EnumShape {
     public Voxelizer getVoxelizer() {
         return ShapeMeshes.getVoxelizer(this);
     }
+
+    /**
+     * Gets the voxel resolutions this shape uses for collision and its outline.
+     *
+     * @return The LOD of this shape.
+     */
+    public ShapeLOD getLOD() {
+        return this.lod;
+    }
+
+    /**
+     * Gets a voxelizer for this shape that can produce grids at the given resolution.
+     *
+     * @param blockResolution The resolution the grids are needed at, see {@link #getLOD()}.
+     * @return The voxelizer, or null if the mesh for this shape couldn't be loaded or the resolution isn't in its LOD.
+     */
+    public Voxelizer getVoxelizer(int blockResolution) {
+        return ShapeMeshes.getVoxelizer(this, blockResolution);
+    }
 }
@@ -0,0 +1,33 @@
+package com.tridevmc.architecture.common.shape;
+
+import com.tridevmc.architecture.core.math.ITrans3;
+import com.tridevmc.architecture.core.model.GridTransform;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Identifies the geometry of a placed shape, two block states with the same identity have exactly the same shapes.
+ * <p>
+ * Many states differ only in properties that don't affect their geometry, eg the connections of a window, or share an
+ * orientation with another state through their transformation resolver. The transform is stored as a
+ * {@link GridTransform}, which unlike the matrix it came from compares exactly.
+ *
+ * @param shape     The shape that was placed.
+ * @param transform The transform applied to the shape, in voxels at {@link ShapeLOD#BASE_RESOLUTION}.
+ */
+public record ShapeIdentity(EnumShape shape, GridTransform transform) {
+
+    /**
+     * Gets the identity of the given shape placed with the given transform.
+     *
+     * @param shape     The shape that was placed.
+     * @param transform The transform applied to the shape.
+     * @return The identity, or null if the transform doesn't map voxels onto voxels and so has no exact form to compare.
+     */
+    @Nullable
+    public static ShapeIdentity of(@NotNull EnumShape shape, @NotNull ITrans3 transform) {
+        var gridTransform = GridTransform.of(transform, ShapeLOD.BASE_RESOLUTION);
+        return gridTransform == null ? null : new ShapeIdentity(shape, gridTransform);
+    }
+
+}
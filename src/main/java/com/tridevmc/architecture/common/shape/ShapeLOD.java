@@ -0,0 +1,88 @@
+package com.tridevmc.architecture.common.shape;
+
+import com.tridevmc.architecture.core.model.BoxBudget;
+
+import java.util.Objects;
+
+/**
+ * The voxel resolutions a shape uses for each of the purposes its voxels are used for.
+ * <p>
+ * Resolutions are in voxels per block. Those that divide the resolution the shape is voxelized at are derived from the
+ * full grid as a hull of it, see {@link com.tridevmc.architecture.core.model.Voxelizer#voxelizeGrid(int)}, finer ones
+ * require the shape to be voxelized again at that resolution, see {@link ShapeMeshes}.
+ * <p>
+ * The collision shape is also simplified to fit within a {@link BoxBudget}, the outline is exact. Ray picking uses the
+ * outline, just like vanilla blocks.
+ *
+ * @param collision       The resolution used for entity collision and pathfinding.
+ * @param outline         The resolution used for the selection outline and ray picking.
+ * @param collisionBudget The limits the collision boxes are simplified to, see {@link BoxBudget}.
+ */
+public record ShapeLOD(int collision, int outline, BoxBudget collisionBudget) {
+
+    /**
+     * The resolution models are voxelized at unless a shape asks for something finer.
+     */
+    public static final int BASE_RESOLUTION = 16;
+
+    /**
+     * The default limits for collision boxes, curved shapes otherwise produce dozens of stair-stepped boxes.
+     */
+    public static final BoxBudget COLLISION_BUDGET = new BoxBudget(8, 0.1);
+
+    /**
+     * Uses the base resolution for everything, and never simplifies collision.
+     */
+    public static final ShapeLOD FULL = new ShapeLOD(BASE_RESOLUTION, BASE_RESOLUTION, BoxBudget.EXACT);
+
+    /**
+     * Uses a half resolution hull for collision, suitable for most shapes. Sloped surfaces like roofs end up at most an
+     * eighth of a block higher, well within the height an entity steps up without noticing.
+     */
+    public static final ShapeLOD DEFAULT = new ShapeLOD(8, BASE_RESOLUTION, COLLISION_BUDGET);
+
+    /**
+     * Uses a quarter resolution hull for collision, for shapes built from quarter or half block steps like slabs and
+     * stairs, where the hull is exact. Sloped shapes shouldn't use this, as their hull fills most of the block.
+     */
+    public static final ShapeLOD COARSE = new ShapeLOD(4, BASE_RESOLUTION, COLLISION_BUDGET);
+
+    public ShapeLOD {
+        if (collision <= 0 || outline <= 0) {
+            throw new IllegalArgumentException("Resolutions must be positive, got " + collision + ", " + outline);
+        }
+        Objects.requireNonNull(collisionBudget, "collisionBudget");
+    }
+
+    /**
+     * Gets the resolution used for the given purpose.
+     *
+     * @param purpose The purpose to get the resolution for.
+     * @return The resolution, in voxels per block.
+     */
+    public int resolution(Purpose purpose) {
+        return switch (purpose) {
+            case COLLISION -> this.collision;
+            case OUTLINE -> this.outline;
+        };
+    }
+
+    /**
+     * Gets the limits the boxes used for the given purpose are simplified to.
+     *
+     * @param purpose The purpose to get the budget for.
+     * @return The budget, {@link BoxBudget#EXACT} for anything other than collision.
+     */
+    public BoxBudget budget(Purpose purpose) {
+        return purpose == Purpose.COLLISION ? this.collisionBudget : BoxBudget.EXACT;
+    }
+
+    /**
+     * The purposes the voxels of a shape are used for.
+     */
+    public enum Purpose {
+        COLLISION,
+        OUTLINE
+    }
+
+}
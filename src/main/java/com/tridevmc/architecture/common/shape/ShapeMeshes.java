@@ -1,17 +1,32 @@
 package com.tridevmc.architecture.common.shape;
 
 import com.tridevmc.architecture.core.ArchitectureLog;
+import com.tridevmc.architecture.core.math.ITrans3;
+import com.tridevmc.architecture.core.model.GridTransform;
+import com.tridevmc.architecture.core.model.IVoxelGrid;
+import com.tridevmc.architecture.core.model.VoxelBundle;
 import com.tridevmc.architecture.core.model.Voxelizer;
 import com.tridevmc.architecture.core.model.mesh.IMesh;
 import com.tridevmc.architecture.core.model.mesh.PolygonData;
 import com.tridevmc.architecture.core.model.objson.OBJSON;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Responsible for getting a mesh for a given shape enum, and a voxelizer for a given shape enum.
+ * <p>
+ * Voxelizers are preloaded from the {@link VoxelBundle} generated at build time where possible. Each shape is voxelized
+ * at {@link ShapeLOD#BASE_RESOLUTION}, which also provides every coarser resolution, and only shapes that ask for a finer
+ * resolution in their {@link ShapeLOD} are voxelized again. Every voxelizer is created here when the shapes are loaded,
+ * so nothing is parsed on whichever thread first asks for a shape. Finer voxelizers are only bundled for the models
+ * listed in the {@code generateVoxelBundle} task of the build.
  */
 public class ShapeMeshes {
 
@@ -19,15 +34,33 @@ public class ShapeMeshes {
 
     private static final Map<EnumShape, IMesh<String, PolygonData>> MESHES = new HashMap<>();
     private static final Map<EnumShape, Voxelizer> VOXELIZERS = new HashMap<>();
+    private static final Map<EnumShape, Map<Integer, Voxelizer>> FINE_VOXELIZERS = new HashMap<>();
+    private static final List<CompletableFuture<IVoxelGrid>> BUNDLED_SOLID_GRIDS = new ArrayList<>();
 
     static {
+        // Shapes shipped with the mod are voxelized at build time, only those missing from the bundle or changed since are voxelized here.
+        var bundle = VoxelBundle.load();
         Arrays.stream(EnumShape.values()).forEach(
                 enumShape -> {
                     try {
-                        var objson = OBJSON.fromResource(enumShape.getAssetLocation());
+                        var objson = OBJSON.fromResource(enumShape.getAssetLocation(), ITrans3.BLOCK_CENTER, ShapeLOD.BASE_RESOLUTION);
                         var mesh = objson.mesh();
                         var voxelizer = objson.voxelizer();
+                        if (preload(bundle, enumShape, voxelizer)) {
+                            // Face coverage is always read from the base grid, see awaitBundledCoverage.
+                            BUNDLED_SOLID_GRIDS.add(voxelizer.voxelizeSolidGrid(GridTransform.IDENTITY));
+                        }
                         register(enumShape, mesh, voxelizer);
+                        for (var purpose : ShapeLOD.Purpose.values()) {
+                            var resolution = enumShape.getLOD().resolution(purpose);
+                            if (!voxelizer.supportsResolution(resolution)) {
+                                FINE_VOXELIZERS.computeIfAbsent(enumShape, s -> new HashMap<>()).computeIfAbsent(resolution, r -> {
+                                    var fine = OBJSON.fromResource(enumShape.getAssetLocation(), ITrans3.BLOCK_CENTER, r).voxelizer();
+                                    preload(bundle, enumShape, fine);
+                                    return fine;
+                                });
+                            }
+                        }
                     } catch (Exception e) {
                         ArchitectureLog.error("Failed to load mesh for shape: " + enumShape.getAssetLocation(), e);
                     }
@@ -35,7 +68,33 @@ public class ShapeMeshes {
         );
     }
 
+    private static boolean preload(VoxelBundle bundle, EnumShape enumShape, Voxelizer voxelizer) {
+        var precompiled = bundle.get(voxelizer.getCacheKey());
+        if (precompiled == null || !voxelizer.preload(precompiled)) {
+            ArchitectureLog.debug("No precompiled voxels for shape {} at resolution {}, it will be voxelized at runtime.", enumShape.getName(), voxelizer.blockResolution());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Waits for the solid voxels of every shape preloaded from the bundle to be found.
+     * <p>
+     * Once they are, the face coverage of any state of those shapes is known as soon as it's asked for, since transforming
+     * a known grid happens on the thread that asks. This is called during mod setup, off the game threads and before any
+     * world can be lit, so those states occlude light from the start. Shapes voxelized at runtime only occlude light in
+     * chunks lit after their coverage is known.
+     */
+    public static void awaitBundledCoverage() {
+        try {
+            CompletableFuture.allOf(BUNDLED_SOLID_GRIDS.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException | CancellationException e) {
+            ArchitectureLog.error("Failed to find the solid voxels of bundled shapes, they will be found again when needed", e);
+        }
+    }
+
     private static void register(EnumShape enumShape, IMesh<String, PolygonData> mesh, Voxelizer voxelizer) {
+        ArchitectureLog.debug("Built AABB tree for shape {}: {}", enumShape.getName(), mesh.getAABBTree().getStats());
         MESHES.put(enumShape, mesh);
         VOXELIZERS.put(enumShape, voxelizer);
     }
@@ -48,4 +107,19 @@ public class ShapeMeshes {
         return VOXELIZERS.get(enumShape);
     }
 
+    /**
+     * Gets a voxelizer for the given shape that can produce grids at the given resolution.
+     *
+     * @param enumShape       The shape to get a voxelizer for.
+     * @param blockResolution The resolution the grids are needed at, one of those in the {@link ShapeLOD} of the shape.
+     * @return The voxelizer, or null if the mesh for the shape couldn't be loaded or the resolution isn't in its LOD.
+     */
+    public static Voxelizer getVoxelizer(EnumShape enumShape, int blockResolution) {
+        var voxelizer = VOXELIZERS.get(enumShape);
+        if (voxelizer == null || voxelizer.supportsResolution(blockResolution)) {
+            return voxelizer;
+        }
+        return FINE_VOXELIZERS.getOrDefault(enumShape, Map.of()).get(blockResolution);
+    }
+
 }
@@ -0,0 +1,117 @@
+package com.tridevmc.architecture.common.utils;
+
+import com.tridevmc.architecture.core.physics.AABB;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import net.minecraft.world.phys.shapes.ArrayVoxelShape;
+import net.minecraft.world.phys.shapes.BitSetDiscreteVoxelShape;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds a single {@link VoxelShape} from a set of boxes in one pass.
+ * <p>
+ * Joining boxes one at a time with {@link Shapes#or(VoxelShape, VoxelShape)} rebuilds the whole shape for every box,
+ * which is quadratic in the number of boxes. Instead, the distinct coordinates of every box are collected on each axis,
+ * the cells between them are filled into one {@link BitSetDiscreteVoxelShape}, and the result is optimized once.
+ * For voxelizer output the coordinates all sit on the voxel grid, so the discrete shape is never finer than the voxels.
+ */
+public class VoxelShapeBuilder {
+
+    // Coordinates closer than this are treated as the same, transformed boxes pick up rounding error.
+    private static final double EPSILON = 1E-7;
+
+    private final List<AABB> boxes = new ArrayList<>();
+
+    /**
+     * Adds a box to the shape.
+     *
+     * @param box The box to add.
+     * @return This builder.
+     */
+    public VoxelShapeBuilder add(@NotNull AABB box) {
+        this.boxes.add(box);
+        return this;
+    }
+
+    /**
+     * Adds a collection of boxes to the shape.
+     *
+     * @param boxes The boxes to add.
+     * @return This builder.
+     */
+    public VoxelShapeBuilder addAll(@NotNull Collection<? extends AABB> boxes) {
+        this.boxes.addAll(boxes);
+        return this;
+    }
+
+    /**
+     * Builds the shape covering every box added so far.
+     *
+     * @return The optimized shape.
+     */
+    public VoxelShape build() {
+        if (this.boxes.isEmpty()) {
+            return Shapes.empty();
+        }
+
+        var xs = this.collectCoordinates(0);
+        var ys = this.collectCoordinates(1);
+        var zs = this.collectCoordinates(2);
+        var discrete = new BitSetDiscreteVoxelShape(xs.length - 1, ys.length - 1, zs.length - 1);
+        for (var box : this.boxes) {
+            var maxX = indexOf(xs, box.maxX());
+            var maxY = indexOf(ys, box.maxY());
+            var maxZ = indexOf(zs, box.maxZ());
+            for (var x = indexOf(xs, box.minX()); x < maxX; x++) {
+                for (var y = indexOf(ys, box.minY()); y < maxY; y++) {
+                    for (var z = indexOf(zs, box.minZ()); z < maxZ; z++) {
+                        discrete.fill(x, y, z);
+                    }
+                }
+            }
+        }
+        return new ArrayVoxelShape(discrete, DoubleArrayList.wrap(xs), DoubleArrayList.wrap(ys), DoubleArrayList.wrap(zs)).optimize();
+    }
+
+    /**
+     * Collects the distinct coordinates of every box along the given axis, in ascending order.
+     */
+    private double[] collectCoordinates(int axis) {
+        var coordinates = new double[this.boxes.size() * 2];
+        for (var i = 0; i < this.boxes.size(); i++) {
+            coordinates[i * 2] = this.boxes.get(i).min(axis);
+            coordinates[i * 2 + 1] = this.boxes.get(i).max(axis);
+        }
+        Arrays.sort(coordinates);
+
+        var count = 1;
+        for (var i = 1; i < coordinates.length; i++) {
+            if (coordinates[i] - coordinates[count - 1] > EPSILON) {
+                coordinates[count++] = coordinates[i];
+            }
+        }
+        return Arrays.copyOf(coordinates, count);
+    }
+
+    /**
+     * Finds the index of the coordinate nearest to the given value, which must be within {@link #EPSILON} of it.
+     */
+    private static int indexOf(double[] coordinates, double value) {
+        var index = Arrays.binarySearch(coordinates, value);
+        if (index >= 0) {
+            return index;
+        }
+        var insertion = -index - 1;
+        if (insertion < coordinates.length && coordinates[insertion] - value <= EPSILON) {
+            return insertion;
+        }
+        return insertion - 1;
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.tridevmc.architecture.core.model;
+
+/**
+ * Limits on how far {@link VoxelGrid#toSimplifiedBoxes(BoxBudget)} may go when approximating a grid with fewer boxes.
+ * <p>
+ * Simplification only ever grows the shape, merging boxes into their bounding box, so the error is the number of empty
+ * voxels that end up covered. The error limit always wins, a grid that can't be brought down to the box limit without
+ * exceeding it is left with more boxes.
+ *
+ * @param maxBoxes The number of boxes to stop at.
+ * @param maxError The number of empty voxels that may be covered, as a fraction of the number of set voxels.
+ */
+public record BoxBudget(int maxBoxes, double maxError) {
+
+    /**
+     * Never simplifies, the boxes cover the grid exactly.
+     */
+    public static final BoxBudget EXACT = new BoxBudget(Integer.MAX_VALUE, 0);
+
+    public BoxBudget {
+        if (maxBoxes <= 0) {
+            throw new IllegalArgumentException("Box limit must be positive, got " + maxBoxes);
+        }
+        if (maxError < 0 || Double.isNaN(maxError)) {
+            throw new IllegalArgumentException("Error limit must not be negative, got " + maxError);
+        }
+    }
+
+    /**
+     * Checks if this budget skips simplification entirely.
+     *
+     * @return True if there's no limit on the number of boxes.
+     */
+    public boolean isExact() {
+        return this.maxBoxes == Integer.MAX_VALUE;
+    }
+
+}
@@ -0,0 +1,254 @@
+package com.tridevmc.architecture.core.model;
+
+import com.google.common.base.MoreObjects;
+import com.tridevmc.architecture.core.model.mesh.FaceDirection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Which parts of each face of a block a shape covers, as a 16x16 bitmap per face.
+ * <p>
+ * A cell of a face is covered when the voxels of the shape touching that face fill the whole cell. Voxels the surface
+ * of the shape passes through are only partly filled, so coverage should be found from a grid of the voxels the shape
+ * fills entirely, see {@link Voxelizer#voxelizeSolidGrid(GridTransform)}, for a covered cell to hide whatever is behind
+ * it. Cells are addressed by their position along the two axes the face
+ * spans, in X, Y, Z order, ie X and Z for the top and bottom faces, X and Y for north and south and Y and Z for east and
+ * west. Positions are in sixteenths of a block, the same units as {@code Block.box}.
+ */
+public final class FaceCoverage {
+
+    /**
+     * The number of cells along each edge of a face.
+     */
+    public static final int SIZE = 16;
+
+    private static final int WORDS_PER_FACE = SIZE * SIZE / Long.SIZE;
+
+    /**
+     * Covers nothing, used for shapes that don't touch the edges of their block.
+     */
+    public static final FaceCoverage EMPTY = new FaceCoverage(new long[6 * WORDS_PER_FACE]);
+
+    /**
+     * Covers every face entirely, like a full block.
+     */
+    public static final FaceCoverage FULL = new FaceCoverage(filled());
+
+    private final long[] words;
+
+    private FaceCoverage(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Finds the coverage of the shape in the given grid, which may be at any resolution.
+     * <p>
+     * Only voxels inside the block from 0 to 1 touching one of its faces count. At resolutions finer than 16 a cell is
+     * covered when every voxel it overlaps is set, at coarser resolutions when the voxel containing it is set. Every set
+     * voxel is taken to be solid, so a grid that includes the voxels the surface only cuts through over-reports coverage.
+     *
+     * @param grid The grid to find the coverage of, in block space.
+     * @return The coverage of the grid.
+     */
+    public static FaceCoverage of(@NotNull IVoxelGrid grid) {
+        var resolution = grid.blockResolution();
+        var origin = new int[]{grid.origin().x(), grid.origin().y(), grid.origin().z()};
+        var words = new long[6 * WORDS_PER_FACE];
+        var voxel = new int[3];
+        for (var face : FaceDirection.values()) {
+            var normal = normalAxis(face);
+            var uAxis = uAxis(face);
+            var vAxis = vAxis(face);
+            // The layer of voxels just inside the face.
+            voxel[normal] = (isPositive(face) ? resolution - 1 : 0) - origin[normal];
+            if (voxel[normal] < 0 || voxel[normal] >= grid.size(normal)) {
+                continue;
+            }
+            for (var u = 0; u < SIZE; u++) {
+                for (var v = 0; v < SIZE; v++) {
+                    if (isFilled(grid, voxel, origin, uAxis, u, vAxis, v)) {
+                        var bit = index(face, u, v);
+                        words[bit >> 6] |= 1L << bit;
+                    }
+                }
+            }
+        }
+        return new FaceCoverage(words);
+    }
+
+    private static boolean isFilled(IVoxelGrid grid, int[] voxel, int[] origin, int uAxis, int u, int vAxis, int v) {
+        var resolution = grid.blockResolution();
+        // The voxels overlapping the cell, in block space.
+        var minU = Math.floorDiv(u * resolution, SIZE);
+        var maxU = Math.floorDiv((u + 1) * resolution + SIZE - 1, SIZE);
+        var minV = Math.floorDiv(v * resolution, SIZE);
+        var maxV = Math.floorDiv((v + 1) * resolution + SIZE - 1, SIZE);
+        for (var gU = minU; gU < maxU; gU++) {
+            for (var gV = minV; gV < maxV; gV++) {
+                voxel[uAxis] = gU - origin[uAxis];
+                voxel[vAxis] = gV - origin[vAxis];
+                if (voxel[uAxis] < 0 || voxel[vAxis] < 0 || voxel[uAxis] >= grid.size(uAxis) || voxel[vAxis] >= grid.size(vAxis)
+                        || !grid.get(voxel[0], voxel[1], voxel[2])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks how much of the given face is covered.
+     *
+     * @param face The face to check.
+     * @return Whether the face is covered entirely, in part or not at all.
+     */
+    public Coverage getCoverage(@NotNull FaceDirection face) {
+        var empty = true;
+        var full = true;
+        for (var i = 0; i < WORDS_PER_FACE; i++) {
+            var word = this.words[face.getIndex() * WORDS_PER_FACE + i];
+            empty &= word == 0L;
+            full &= word == -1L;
+        }
+        return full ? Coverage.FULL : empty ? Coverage.EMPTY : Coverage.PARTIAL;
+    }
+
+    /**
+     * Checks if the given cell of a face is covered.
+     *
+     * @param face The face the cell is on.
+     * @param u    The position of the cell along the first axis of the face.
+     * @param v    The position of the cell along the second axis of the face.
+     * @return True if the cell is covered.
+     */
+    public boolean isCovered(@NotNull FaceDirection face, int u, int v) {
+        var bit = index(face, u, v);
+        return (this.words[bit >> 6] & 1L << bit) != 0;
+    }
+
+    /**
+     * Checks if the given face covers everything the given box would cover if it were projected onto it, eg to match
+     * the support shapes used by {@code Block.canSupportCenter}.
+     *
+     * @param face The face to check.
+     * @param minX The minimum X of the box, in sixteenths of a block.
+     * @param minY The minimum Y of the box.
+     * @param minZ The minimum Z of the box.
+     * @param maxX The maximum X of the box.
+     * @param maxY The maximum Y of the box.
+     * @param maxZ The maximum Z of the box.
+     * @return True if every cell the box projects onto is covered.
+     */
+    public boolean covers(@NotNull FaceDirection face, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        var min = new int[]{minX, minY, minZ};
+        var max = new int[]{maxX, maxY, maxZ};
+        var uAxis = uAxis(face);
+        var vAxis = vAxis(face);
+        for (var u = min[uAxis]; u < max[uAxis]; u++) {
+            for (var v = min[vAxis]; v < max[vAxis]; v++) {
+                if (!this.isCovered(face, u, v)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the axis the given face points along.
+     *
+     * @param face The face.
+     * @return The axis, 0 for X, 1 for Y and 2 for Z.
+     */
+    public static int normalAxis(@NotNull FaceDirection face) {
+        return switch (face) {
+            case WEST, EAST -> 0;
+            case DOWN, UP -> 1;
+            case NORTH, SOUTH -> 2;
+        };
+    }
+
+    /**
+     * Gets the first axis the given face spans, which cells are addressed by first.
+     *
+     * @param face The face.
+     * @return The axis, 0 for X, 1 for Y and 2 for Z.
+     */
+    public static int uAxis(@NotNull FaceDirection face) {
+        return normalAxis(face) == 0 ? 1 : 0;
+    }
+
+    /**
+     * Gets the second axis the given face spans.
+     *
+     * @param face The face.
+     * @return The axis, 0 for X, 1 for Y and 2 for Z.
+     */
+    public static int vAxis(@NotNull FaceDirection face) {
+        return normalAxis(face) == 2 ? 1 : 2;
+    }
+
+    /**
+     * Checks if the given face is on the far side of the block along its axis.
+     *
+     * @param face The face.
+     * @return True for up, south and east.
+     */
+    public static boolean isPositive(@NotNull FaceDirection face) {
+        return face == FaceDirection.UP || face == FaceDirection.SOUTH || face == FaceDirection.EAST;
+    }
+
+    private static int index(FaceDirection face, int u, int v) {
+        if (u < 0 || v < 0 || u >= SIZE || v >= SIZE) {
+            throw new IndexOutOfBoundsException("Cell (%d, %d) is outside of a %dx%d face".formatted(u, v, SIZE, SIZE));
+        }
+        return face.getIndex() * SIZE * SIZE + u * SIZE + v;
+    }
+
+    private static long[] filled() {
+        var words = new long[6 * WORDS_PER_FACE];
+        Arrays.fill(words, -1L);
+        return words;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FaceCoverage that)) return false;
+        return Arrays.equals(this.words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.words);
+    }
+
+    @Override
+    public String toString() {
+        var helper = MoreObjects.toStringHelper(this);
+        for (var face : FaceDirection.values()) {
+            helper.add(face.name().toLowerCase(), this.getCoverage(face));
+        }
+        return helper.toString();
+    }
+
+    /**
+     * How much of a face is covered.
+     */
+    public enum Coverage {
+        /**
+         * Nothing on the other side of the face is hidden.
+         */
+        EMPTY,
+        /**
+         * Some of the face is covered, see {@link #isCovered(FaceDirection, int, int)} for which parts.
+         */
+        PARTIAL,
+        /**
+         * The whole face is covered, as if by a full block.
+         */
+        FULL
+    }
+
+}
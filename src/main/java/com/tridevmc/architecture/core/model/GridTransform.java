@@ -0,0 +1,146 @@
+package com.tridevmc.architecture.core.model;
+
+import com.tridevmc.architecture.core.math.IMatrix4;
+import com.tridevmc.architecture.core.math.ITrans3;
+import com.tridevmc.architecture.core.math.integer.IVector3i;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A transform that maps every voxel of a grid onto another voxel exactly, ie a rotation by a multiple of 90 degrees or a
+ * mirror along an axis, followed by a translation by a whole number of voxels.
+ * <p>
+ * Applying one of these to an {@link IVoxelGrid} only moves bits around, so unlike transforming the boxes of a grid it
+ * never picks up any floating point error. All of the orientations a shape can be placed in are transforms of this kind.
+ *
+ * @param sourceX The axis of the source grid that becomes the X axis, 0 for X, 1 for Y and 2 for Z.
+ * @param sourceY The axis of the source grid that becomes the Y axis.
+ * @param sourceZ The axis of the source grid that becomes the Z axis.
+ * @param flipX   True if the X axis runs the opposite way to its source axis.
+ * @param flipY   True if the Y axis runs the opposite way to its source axis.
+ * @param flipZ   True if the Z axis runs the opposite way to its source axis.
+ * @param offsetX The distance to move the grid along the X axis afterwards, in voxels.
+ * @param offsetY The distance to move the grid along the Y axis afterwards, in voxels.
+ * @param offsetZ The distance to move the grid along the Z axis afterwards, in voxels.
+ */
+public record GridTransform(int sourceX, int sourceY, int sourceZ,
+                            boolean flipX, boolean flipY, boolean flipZ,
+                            int offsetX, int offsetY, int offsetZ) {
+
+    public static final GridTransform IDENTITY = new GridTransform(0, 1, 2, false, false, false, 0, 0, 0);
+
+    // Allowance for the rounding error in matrices built from angles, eg cos(90) isn't exactly zero.
+    private static final double TOLERANCE = 1E-6;
+
+    /**
+     * Finds the grid transform equivalent to the given transform, if there is one.
+     *
+     * @param transform       The transform to convert.
+     * @param blockResolution The number of voxels per block in the grids the transform will be applied to.
+     * @return The equivalent grid transform, or null if the transform doesn't map voxels exactly onto other voxels.
+     */
+    @Nullable
+    public static GridTransform of(@NotNull ITrans3 transform, int blockResolution) {
+        var m = transform.matrix();
+        if (!isNear(m.m30(), 0) || !isNear(m.m31(), 0) || !isNear(m.m32(), 0) || !isNear(m.m33(), 1)) {
+            return null;
+        }
+
+        var sources = new int[3];
+        var flips = new boolean[3];
+        var offsets = new int[3];
+        var usedAxes = 0;
+        for (var row = 0; row < 3; row++) {
+            var source = -1;
+            for (var column = 0; column < 3; column++) {
+                var value = get(m, row, column);
+                if (isNear(Math.abs(value), 1) && source == -1) {
+                    source = column;
+                    flips[row] = value < 0;
+                } else if (!isNear(value, 0)) {
+                    return null;
+                }
+            }
+            if (source == -1 || (usedAxes & (1 << source)) != 0) {
+                return null;
+            }
+            usedAxes |= 1 << source;
+            sources[row] = source;
+
+            var offset = get(m, row, 3) * blockResolution;
+            offsets[row] = (int) Math.round(offset);
+            if (!isNear(offset, offsets[row])) {
+                return null;
+            }
+        }
+        return new GridTransform(sources[0], sources[1], sources[2], flips[0], flips[1], flips[2], offsets[0], offsets[1], offsets[2]);
+    }
+
+    /**
+     * Creates a new grid with every voxel of the given grid moved to where this transform maps it.
+     *
+     * @param grid The grid to transform.
+     * @return The transformed grid.
+     */
+    public IVoxelGrid apply(@NotNull IVoxelGrid grid) {
+        if (this.equals(IDENTITY)) {
+            return grid.copy();
+        }
+        var sources = new int[]{this.sourceX, this.sourceY, this.sourceZ};
+        var flips = new boolean[]{this.flipX, this.flipY, this.flipZ};
+        var offsets = new int[]{this.offsetX, this.offsetY, this.offsetZ};
+        var sourceOrigin = new int[]{grid.origin().x(), grid.origin().y(), grid.origin().z()};
+
+        var sizes = new int[3];
+        var origin = new int[3];
+        for (var axis = 0; axis < 3; axis++) {
+            var source = sources[axis];
+            sizes[axis] = grid.size(source);
+            // A voxel at i covers i to i + 1, so once flipped it covers -i - 1 to -i.
+            origin[axis] = flips[axis]
+                    ? offsets[axis] - sourceOrigin[source] - sizes[axis]
+                    : offsets[axis] + sourceOrigin[source];
+        }
+
+        var out = IVoxelGrid.create(IVector3i.ofImmutable(origin[0], origin[1], origin[2]), sizes[0], sizes[1], sizes[2], grid.blockResolution());
+        var position = new int[3];
+        grid.forEachSet((x, y, z) -> {
+            position[0] = x;
+            position[1] = y;
+            position[2] = z;
+            out.set(
+                    this.map(position, sources[0], flips[0], sizes[0]),
+                    this.map(position, sources[1], flips[1], sizes[1]),
+                    this.map(position, sources[2], flips[2], sizes[2])
+            );
+        });
+        return out;
+    }
+
+    private int map(int[] position, int source, boolean flip, int size) {
+        return flip ? size - 1 - position[source] : position[source];
+    }
+
+    private static double get(IMatrix4 m, int row, int column) {
+        return switch (row * 4 + column) {
+            case 0 -> m.m00();
+            case 1 -> m.m01();
+            case 2 -> m.m02();
+            case 3 -> m.m03();
+            case 4 -> m.m10();
+            case 5 -> m.m11();
+            case 6 -> m.m12();
+            case 7 -> m.m13();
+            case 8 -> m.m20();
+            case 9 -> m.m21();
+            case 10 -> m.m22();
+            case 11 -> m.m23();
+            default -> throw new IllegalArgumentException("Invalid matrix index %d, %d".formatted(row, column));
+        };
+    }
+
+    private static boolean isNear(double value, double target) {
+        return Math.abs(value - target) <= TOLERANCE;
+    }
+
+}
@@ -0,0 +1,309 @@
+package com.tridevmc.architecture.core.model;
+
+import com.tridevmc.architecture.core.math.integer.IVector3i;
+import com.tridevmc.architecture.core.math.integer.IVector3iImmutable;
+import com.tridevmc.architecture.core.physics.AABB;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed size grid of voxels, addressed by their offset from the origin of the grid.
+ * <p>
+ * There are two representations, a dense bitset in {@link VoxelGrid} and a sparse octree in {@link SparseVoxelGrid}.
+ * The dense grid is faster for the small grids most shapes produce, while the octree only grows with the detail of the
+ * shape rather than its volume, so it's used for high resolutions and large bounds. {@link #create} picks between them
+ * based on the size of the grid, and everything that works with grids should go through this interface.
+ * <p>
+ * Grids are not thread safe, build a grid per thread and combine them with {@link #or(IVoxelGrid)} instead.
+ */
+public interface IVoxelGrid {
+
+    /**
+     * The number of voxels above which {@link #create} uses a sparse grid, can be changed with the
+     * {@value #DENSE_LIMIT_PROPERTY} system property.
+     */
+    String DENSE_LIMIT_PROPERTY = "architecturecraft.voxelizer.denseLimit";
+
+    /**
+     * The largest grid {@link #create} stores densely, 2^21 voxels is 256KiB of bits, or a 128x128x128 grid.
+     */
+    long DENSE_LIMIT = Long.getLong(DENSE_LIMIT_PROPERTY, 1L << 21);
+
+    /**
+     * Creates a new empty grid, using whichever representation suits its size.
+     *
+     * @param origin          The position of the first voxel in the grid, in units of voxels.
+     * @param sizeX           The number of voxels on the X axis.
+     * @param sizeY           The number of voxels on the Y axis.
+     * @param sizeZ           The number of voxels on the Z axis.
+     * @param blockResolution The number of voxels per block.
+     * @return The new grid.
+     */
+    static IVoxelGrid create(@NotNull IVector3i origin, int sizeX, int sizeY, int sizeZ, int blockResolution) {
+        if ((long) sizeX * sizeY * sizeZ > DENSE_LIMIT) {
+            return new SparseVoxelGrid(origin, sizeX, sizeY, sizeZ, blockResolution);
+        }
+        return new VoxelGrid(origin, sizeX, sizeY, sizeZ, blockResolution);
+    }
+
+    /**
+     * Gets the given grid in the representation {@link #create} would pick for its size, converting it if needed.
+     *
+     * @param grid The grid to convert.
+     * @return The given grid if it already uses that representation, otherwise a converted copy of it.
+     */
+    static IVoxelGrid compact(@NotNull IVoxelGrid grid) {
+        var out = create(grid.origin(), grid.sizeX(), grid.sizeY(), grid.sizeZ(), grid.blockResolution());
+        if (out.getClass() == grid.getClass()) {
+            return grid;
+        }
+        return out.or(grid);
+    }
+
+    /**
+     * Creates a new empty grid with the same dimensions, origin, resolution and representation as this one.
+     *
+     * @return The new grid.
+     */
+    IVoxelGrid emptyCopy();
+
+    /**
+     * Creates a copy of this grid.
+     *
+     * @return The new grid.
+     */
+    IVoxelGrid copy();
+
+    /**
+     * Checks if the voxel at the given offset is set.
+     *
+     * @param x The offset of the voxel from the origin on the X axis.
+     * @param y The offset of the voxel from the origin on the Y axis.
+     * @param z The offset of the voxel from the origin on the Z axis.
+     * @return True if the voxel is set, false otherwise.
+     */
+    boolean get(int x, int y, int z);
+
+    /**
+     * Sets the voxel at the given offset.
+     *
+     * @param x The offset of the voxel from the origin on the X axis.
+     * @param y The offset of the voxel from the origin on the Y axis.
+     * @param z The offset of the voxel from the origin on the Z axis.
+     */
+    void set(int x, int y, int z);
+
+    /**
+     * Sets or clears the voxel at the given offset.
+     *
+     * @param x     The offset of the voxel from the origin on the X axis.
+     * @param y     The offset of the voxel from the origin on the Y axis.
+     * @param z     The offset of the voxel from the origin on the Z axis.
+     * @param value True to set the voxel, false to clear it.
+     */
+    default void set(int x, int y, int z, boolean value) {
+        if (value) {
+            this.set(x, y, z);
+        } else {
+            this.clear(x, y, z);
+        }
+    }
+
+    /**
+     * Clears the voxel at the given offset.
+     *
+     * @param x The offset of the voxel from the origin on the X axis.
+     * @param y The offset of the voxel from the origin on the Y axis.
+     * @param z The offset of the voxel from the origin on the Z axis.
+     */
+    void clear(int x, int y, int z);
+
+    /**
+     * Counts the voxels that are set in this grid.
+     *
+     * @return The number of set voxels.
+     */
+    int cardinality();
+
+    /**
+     * Checks if no voxels are set in this grid.
+     *
+     * @return True if the grid is empty, false otherwise.
+     */
+    default boolean isEmpty() {
+        return this.cardinality() == 0;
+    }
+
+    /**
+     * Sets every voxel that is set in the given grid, the grids must have the same dimensions and origin but may use
+     * different representations.
+     *
+     * @param other The grid to combine with this one.
+     * @return This grid.
+     */
+    IVoxelGrid or(@NotNull IVoxelGrid other);
+
+    /**
+     * Visits every set voxel in the grid. The order depends on the representation, see the implementations.
+     *
+     * @param consumer The consumer to pass the offset of each set voxel to.
+     */
+    void forEachSet(@NotNull VoxelConsumer consumer);
+
+    /**
+     * Gets the box covering the voxel at the given offset, in block space.
+     *
+     * @param x The offset of the voxel from the origin on the X axis.
+     * @param y The offset of the voxel from the origin on the Y axis.
+     * @param z The offset of the voxel from the origin on the Z axis.
+     * @return The box covering the voxel.
+     */
+    default AABB getBox(int x, int y, int z) {
+        var resolution = 1.0D / this.blockResolution();
+        var origin = this.origin();
+        double bX = (x + origin.x()) * resolution;
+        double bY = (y + origin.y()) * resolution;
+        double bZ = (z + origin.z()) * resolution;
+        return new AABB(bX, bY, bZ, bX + resolution, bY + resolution, bZ + resolution);
+    }
+
+    /**
+     * Creates a box for every set voxel in the grid.
+     *
+     * @return A list of boxes, one per set voxel.
+     */
+    default List<AABB> toBoxes() {
+        var boxes = new ArrayList<AABB>(this.cardinality());
+        this.forEachSet((x, y, z) -> boxes.add(this.getBox(x, y, z)));
+        return boxes;
+    }
+
+    /**
+     * Creates a set of non-overlapping boxes covering exactly the set voxels in the grid, merging neighbouring voxels
+     * where possible.
+     *
+     * @return A list of boxes covering every set voxel.
+     */
+    List<AABB> toMergedBoxes();
+
+    /**
+     * Creates a set of boxes covering every set voxel in the grid, simplified to fit within the given budget where possible, see
+     * {@link VoxelGrid#toSimplifiedBoxes(BoxBudget)}.
+     *
+     * @param budget The limits on the number of boxes and the error.
+     * @return A list of boxes covering every set voxel, which may overlap.
+     */
+    List<AABB> toSimplifiedBoxes(@NotNull BoxBudget budget);
+
+    /**
+     * Creates a new grid at a lower resolution covering this one, where a voxel is set if any of the voxels it covers in
+     * this grid are set.
+     * <p>
+     * The result is a hull of this grid, it never has gaps where this grid is occupied, so thin parts of a shape are
+     * widened rather than lost.
+     *
+     * @param factor The number of voxels in this grid along each axis of a voxel in the new grid, must divide the
+     *               resolution of this grid.
+     * @return The new grid, at a resolution of {@code blockResolution / factor}.
+     */
+    default IVoxelGrid downsample(int factor) {
+        var resolution = this.blockResolution();
+        if (factor <= 0 || resolution % factor != 0) {
+            throw new IllegalArgumentException("Cannot downsample a grid with resolution %d by %d".formatted(resolution, factor));
+        }
+        if (factor == 1) {
+            return this.copy();
+        }
+        var origin = this.origin();
+        var minX = Math.floorDiv(origin.x(), factor);
+        var minY = Math.floorDiv(origin.y(), factor);
+        var minZ = Math.floorDiv(origin.z(), factor);
+        var out = create(
+                IVector3i.ofImmutable(minX, minY, minZ),
+                Math.floorDiv(origin.x() + this.sizeX() - 1, factor) - minX + 1,
+                Math.floorDiv(origin.y() + this.sizeY() - 1, factor) - minY + 1,
+                Math.floorDiv(origin.z() + this.sizeZ() - 1, factor) - minZ + 1,
+                resolution / factor
+        );
+        this.forEachSet((x, y, z) -> out.set(
+                Math.floorDiv(origin.x() + x, factor) - minX,
+                Math.floorDiv(origin.y() + y, factor) - minY,
+                Math.floorDiv(origin.z() + z, factor) - minZ
+        ));
+        return out;
+    }
+
+    /**
+     * Checks if the given grid covers the same voxels as this one, ie it has the same dimensions, origin and resolution.
+     *
+     * @param other The grid to compare against.
+     * @return True if the grids have the same bounds.
+     */
+    default boolean hasSameBounds(@NotNull IVoxelGrid other) {
+        return this.sizeX() == other.sizeX() && this.sizeY() == other.sizeY() && this.sizeZ() == other.sizeZ()
+                && this.blockResolution() == other.blockResolution() && this.origin().equals(other.origin());
+    }
+
+    /**
+     * Checks if the given grid has the same bounds and set voxels as this one, regardless of how either is stored.
+     *
+     * @param other The grid to compare against.
+     * @return True if the grids contain the same voxels.
+     */
+    default boolean contentEquals(@NotNull IVoxelGrid other) {
+        if (this == other) {
+            return true;
+        }
+        if (!this.hasSameBounds(other) || this.cardinality() != other.cardinality()) {
+            return false;
+        }
+        var matches = new boolean[]{true};
+        this.forEachSet((x, y, z) -> matches[0] &= other.get(x, y, z));
+        return matches[0];
+    }
+
+    /**
+     * Gets the size of the grid along the given axis.
+     *
+     * @param axis The axis, 0 for X, 1 for Y and 2 for Z.
+     * @return The number of voxels along the axis.
+     */
+    default int size(int axis) {
+        return switch (axis) {
+            case 0 -> this.sizeX();
+            case 1 -> this.sizeY();
+            case 2 -> this.sizeZ();
+            default -> throw new IllegalArgumentException("Invalid axis " + axis);
+        };
+    }
+
+    int sizeX();
+
+    int sizeY();
+
+    int sizeZ();
+
+    IVector3iImmutable origin();
+
+    int blockResolution();
+
+    /**
+     * Receives the offsets of voxels in a grid.
+     */
+    @FunctionalInterface
+    interface VoxelConsumer {
+
+        /**
+         * Accepts the offset of a voxel from the origin of the grid.
+         *
+         * @param x The offset of the voxel on the X axis.
+         * @param y The offset of the voxel on the Y axis.
+         * @param z The offset of the voxel on the Z axis.
+         */
+        void accept(int x, int y, int z);
+
+    }
+
+}
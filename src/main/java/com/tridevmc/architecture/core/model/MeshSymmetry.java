@@ -0,0 +1,143 @@
+package com.tridevmc.architecture.core.model;
+
+import com.tridevmc.architecture.core.math.IVector3;
+import com.tridevmc.architecture.core.model.mesh.IMesh;
+import com.tridevmc.architecture.core.model.mesh.IFace;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The planes a mesh is mirror symmetric across, restricted to planes that lie on or halfway between voxel boundaries so
+ * that mirroring maps each voxel exactly onto another.
+ * <p>
+ * Planes are stored as twice their position in voxels, so a voxel at {@code i} along a symmetric axis mirrors onto the
+ * voxel at {@code plane - 1 - i}.
+ *
+ * @param planeX The plane the mesh is symmetric across on the X axis, or {@link #NO_PLANE}.
+ * @param planeY The plane the mesh is symmetric across on the Y axis, or {@link #NO_PLANE}.
+ * @param planeZ The plane the mesh is symmetric across on the Z axis, or {@link #NO_PLANE}.
+ */
+public record MeshSymmetry(int planeX, int planeY, int planeZ) {
+
+    public static final int NO_PLANE = Integer.MIN_VALUE;
+    public static final MeshSymmetry NONE = new MeshSymmetry(NO_PLANE, NO_PLANE, NO_PLANE);
+
+    // Vertices are compared after rounding to this many steps per unit, far finer than any voxel grid.
+    private static final double PRECISION = 1E5;
+
+    /**
+     * Finds the planes the given mesh is mirror symmetric across.
+     * <p>
+     * Only the plane through the centre of the bounds of the mesh is checked on each axis. A mesh counts as symmetric
+     * across a plane if mirroring every face across it, including its normal, produces another face of the mesh.
+     *
+     * @param mesh            The mesh to check.
+     * @param blockResolution The resolution of the voxel grid the symmetry will be used with.
+     * @return The symmetry of the mesh, {@link #NONE} if it isn't symmetric on any axis.
+     */
+    public static MeshSymmetry detect(@NotNull IMesh<?, ?> mesh, int blockResolution) {
+        var faces = List.copyOf(mesh.getFaces());
+        var keys = new HashSet<List<Long>>(faces.size() * 2);
+        for (var face : faces) {
+            keys.add(createKey(face, -1, 0));
+        }
+
+        var bounds = mesh.getBounds();
+        var planes = new int[3];
+        for (var axis = 0; axis < 3; axis++) {
+            // The centre of the bounds, in half voxels.
+            var centre = (bounds.min(axis) + bounds.max(axis)) * blockResolution;
+            var plane = (int) Math.round(centre);
+            planes[axis] = Math.abs(centre - plane) * PRECISION < 1 && isSymmetric(faces, keys, axis, plane / (double) blockResolution)
+                    ? plane : NO_PLANE;
+        }
+        return new MeshSymmetry(planes[0], planes[1], planes[2]);
+    }
+
+    private static boolean isSymmetric(List<? extends IFace<?>> faces, Set<List<Long>> keys, int axis, double mirror) {
+        for (var face : faces) {
+            if (!keys.contains(createKey(face, axis, mirror))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a key identifying a face by its normal and the set of its vertices, optionally mirrored on one axis.
+     * <p>
+     * Faces are compared rather than polygons, as the mirror image of a face isn't always split into polygons the same way.
+     *
+     * @param axis   The axis to mirror on, or -1 to leave the face as it is.
+     * @param mirror Twice the position of the plane to mirror across.
+     */
+    private static List<Long> createKey(IFace<?> face, int axis, double mirror) {
+        var positions = new TreeSet<long[]>(Arrays::compare);
+        for (var vertex : face.getVertices()) {
+            positions.add(round(vertex.getPos(), axis, mirror, false));
+        }
+        var key = new ArrayList<Long>(positions.size() * 3 + 3);
+        for (var value : round(face.getNormal(), axis, 0, true)) {
+            key.add(value);
+        }
+        for (var position : positions) {
+            for (var value : position) {
+                key.add(value);
+            }
+        }
+        return key;
+    }
+
+    private static long[] round(IVector3 vector, int axis, double mirror, boolean direction) {
+        var out = new long[3];
+        for (var i = 0; i < 3; i++) {
+            var value = vector.getComponent(i);
+            if (i == axis) {
+                value = direction ? -value : mirror - value;
+            }
+            out[i] = Math.round(value * PRECISION);
+        }
+        return out;
+    }
+
+    /**
+     * Gets the plane the mesh is symmetric across on the given axis.
+     *
+     * @param axis The axis, 0 for X, 1 for Y and 2 for Z.
+     * @return Twice the position of the plane in voxels, or {@link #NO_PLANE}.
+     */
+    public int plane(int axis) {
+        return switch (axis) {
+            case 0 -> this.planeX;
+            case 1 -> this.planeY;
+            case 2 -> this.planeZ;
+            default -> throw new IllegalArgumentException("Invalid axis " + axis);
+        };
+    }
+
+    /**
+     * Checks if the mesh is symmetric on the given axis.
+     *
+     * @param axis The axis, 0 for X, 1 for Y and 2 for Z.
+     * @return True if the mesh is symmetric across a plane on the axis.
+     */
+    public boolean isSymmetric(int axis) {
+        return this.plane(axis) != NO_PLANE;
+    }
+
+    /**
+     * Checks if the mesh is symmetric on any axis.
+     *
+     * @return True if the mesh is symmetric across at least one plane.
+     */
+    public boolean isSymmetric() {
+        return this.planeX != NO_PLANE || this.planeY != NO_PLANE || this.planeZ != NO_PLANE;
+    }
+
+}
@@ -0,0 +1,502 @@
+package com.tridevmc.architecture.core.model;
+
+import com.google.common.base.MoreObjects;
+import com.tridevmc.architecture.core.ArchitectureLog;
+import com.tridevmc.architecture.core.math.integer.IVector3i;
+import com.tridevmc.architecture.core.math.integer.IVector3iImmutable;
+import com.tridevmc.architecture.core.physics.AABB;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A fixed size grid of voxels, stored as a sparse octree. This is the representation {@link IVoxelGrid#create} uses for
+ * grids too large to store densely, eg shapes voxelized at a high resolution or with bounds well outside a block.
+ * <p>
+ * The octree covers the smallest power of two cube containing the grid. Any node whose voxels are all set or all clear
+ * is collapsed into a single shared leaf, so memory grows with the area of the surface of a shape rather than its volume,
+ * and solid regions turn straight into boxes in {@link #toMergedBoxes()}. The bottom of the tree is made of 4x4x4 bricks
+ * stored as a single long, rather than two more levels of single voxel nodes. Nodes are always kept collapsed, so two grids
+ * containing the same voxels have the same tree.
+ * <p>
+ * Voxels are visited in octree order, not in the order {@link VoxelGrid} visits them.
+ */
+public final class SparseVoxelGrid implements IVoxelGrid {
+
+    private static final Node EMPTY = new Node(null, 0L);
+    private static final Node FULL = new Node(null, -1L);
+    // Nodes at this level are stored as a bitmask of their 4x4x4 voxels rather than split any further.
+    private static final int BRICK_LEVEL = 2;
+    // Partly filled nodes at or below this level are merged densely by toMergedBoxes, a 32x32x32 chunk is 4KiB of bits.
+    private static final int CHUNK_LEVEL = 5;
+
+    private final IVector3iImmutable origin;
+    private final int sizeX, sizeY, sizeZ;
+    private final int blockResolution;
+    // The root covers a cube 2^depth voxels wide.
+    private final int depth;
+    private Node root = EMPTY;
+    private int cardinality;
+
+    /**
+     * Creates a new empty grid.
+     *
+     * @param origin          The position of the first voxel in the grid, in units of voxels.
+     * @param sizeX           The number of voxels on the X axis.
+     * @param sizeY           The number of voxels on the Y axis.
+     * @param sizeZ           The number of voxels on the Z axis.
+     * @param blockResolution The number of voxels per block.
+     */
+    public SparseVoxelGrid(@NotNull IVector3i origin, int sizeX, int sizeY, int sizeZ, int blockResolution) {
+        if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive, got %dx%dx%d".formatted(sizeX, sizeY, sizeZ));
+        }
+        this.origin = origin.asImmutable();
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.blockResolution = blockResolution;
+        var largest = Math.max(sizeX, Math.max(sizeY, sizeZ));
+        this.depth = Math.max(BRICK_LEVEL, 32 - Integer.numberOfLeadingZeros(largest - 1));
+    }
+
+    @Override
+    public SparseVoxelGrid emptyCopy() {
+        return new SparseVoxelGrid(this.origin, this.sizeX, this.sizeY, this.sizeZ, this.blockResolution);
+    }
+
+    @Override
+    public SparseVoxelGrid copy() {
+        var copy = this.emptyCopy();
+        copy.root = copyNode(this.root);
+        copy.cardinality = this.cardinality;
+        return copy;
+    }
+
+    @Override
+    public boolean get(int x, int y, int z) {
+        this.checkBounds(x, y, z);
+        var node = this.root;
+        for (var level = this.depth - 1; node.children != null; level--) {
+            node = node.children[childIndex(x, y, z, level)];
+        }
+        // Full and empty leaves have every bit set or clear, so they can be read the same way as bricks.
+        return (node.bits & brickBit(x, y, z)) != 0;
+    }
+
+    @Override
+    public void set(int x, int y, int z) {
+        if (!this.get(x, y, z)) {
+            this.root = this.set(this.root, x, y, z, this.depth, true);
+            this.cardinality++;
+        }
+    }
+
+    @Override
+    public void clear(int x, int y, int z) {
+        if (this.get(x, y, z)) {
+            this.root = this.set(this.root, x, y, z, this.depth, false);
+            this.cardinality--;
+        }
+    }
+
+    /**
+     * Sets or clears a voxel below the given node, splitting leaves on the way down and collapsing them on the way up.
+     * Only ever called for voxels that will change.
+     *
+     * @param level The level of the node, a node at level n covers a cube 2^n voxels wide.
+     * @return The node to replace the given node with.
+     */
+    private Node set(Node node, int x, int y, int z, int level, boolean value) {
+        if (level == BRICK_LEVEL) {
+            var bits = node.bits ^ brickBit(x, y, z);
+            if (bits == 0L || bits == -1L) {
+                return bits == 0L ? EMPTY : FULL;
+            }
+            if (node == EMPTY || node == FULL) {
+                return new Node(null, bits);
+            }
+            node.bits = bits;
+            return node;
+        }
+        var children = node.children;
+        if (children == null) {
+            children = new Node[8];
+            Arrays.fill(children, node);
+        }
+        var index = childIndex(x, y, z, level - 1);
+        children[index] = this.set(children[index], x, y, z, level - 1, value);
+        var uniform = uniformLeaf(children);
+        if (uniform != null) {
+            return uniform;
+        }
+        // Branches are never shared between grids, so they can be updated in place.
+        return node.children == children ? node : new Node(children, 0L);
+    }
+
+    @Override
+    public int cardinality() {
+        return this.cardinality;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.root == EMPTY;
+    }
+
+    @Override
+    public SparseVoxelGrid or(@NotNull IVoxelGrid other) {
+        if (!this.hasSameBounds(other)) {
+            throw new IllegalArgumentException("Cannot combine grids with different dimensions, origins or resolutions");
+        }
+        if (other instanceof SparseVoxelGrid sparse) {
+            // Whole subtrees can be combined at once, only the nodes where both trees are partly filled need visiting.
+            this.root = union(this.root, sparse.root);
+            this.cardinality = (int) count(this.root, this.depth);
+        } else {
+            other.forEachSet(this::set);
+        }
+        return this;
+    }
+
+    /**
+     * Visits every set voxel in the grid, in octree order.
+     *
+     * @param consumer The consumer to pass the offset of each set voxel to.
+     */
+    @Override
+    public void forEachSet(@NotNull VoxelConsumer consumer) {
+        forEachSet(this.root, 0, 0, 0, this.depth, consumer);
+    }
+
+    /**
+     * Creates a set of boxes covering exactly the set voxels in the grid.
+     * <p>
+     * Full nodes of the tree become boxes as they are, only partly filled nodes the size of a {@link #CHUNK_LEVEL chunk}
+     * are copied into a small dense grid and merged with {@link VoxelGrid#toMergedBoxes()}. Boxes that share a whole face
+     * are then joined along the X, Y and Z axes in turn, so solid regions spanning several nodes end up as one box without
+     * ever visiting the voxels inside them.
+     *
+     * @return A list of non-overlapping boxes covering every set voxel.
+     */
+    @Override
+    public List<AABB> toMergedBoxes() {
+        List<int[]> ranges = new ArrayList<>();
+        this.collectRanges(this.root, 0, 0, 0, this.depth, ranges);
+        for (var axis = 0; axis < 3; axis++) {
+            ranges = joinAlong(ranges, axis);
+        }
+        var resolution = 1.0D / this.blockResolution;
+        var boxes = new ArrayList<AABB>(ranges.size());
+        for (var r : ranges) {
+            boxes.add(new AABB(
+                    (r[0] + this.origin.x()) * resolution,
+                    (r[1] + this.origin.y()) * resolution,
+                    (r[2] + this.origin.z()) * resolution,
+                    (r[3] + 1 + this.origin.x()) * resolution,
+                    (r[4] + 1 + this.origin.y()) * resolution,
+                    (r[5] + 1 + this.origin.z()) * resolution
+            ));
+        }
+        return boxes;
+    }
+
+    /**
+     * Creates a set of boxes covering every set voxel in the grid, simplified to fit within the given budget where possible.
+     * <p>
+     * Simplifying counts the voxels in candidate boxes, which needs a dense copy of the grid. Grids within
+     * {@link #DENSE_LIMIT} are copied and simplified with {@link VoxelGrid#toSimplifiedBoxes(BoxBudget)}, larger ones
+     * keep the boxes from {@link #toMergedBoxes()}, which never exceed the error allowed but may exceed the number of boxes.
+     *
+     * @param budget The limits on the number of boxes and the error.
+     * @return A list of boxes covering every set voxel, which may overlap.
+     */
+    @Override
+    public List<AABB> toSimplifiedBoxes(@NotNull BoxBudget budget) {
+        var merged = this.toMergedBoxes();
+        if (budget.isExact() || merged.size() <= budget.maxBoxes()) {
+            return merged;
+        }
+        if ((long) this.sizeX * this.sizeY * this.sizeZ > DENSE_LIMIT) {
+            ArchitectureLog.debug("Grid of {}x{}x{} voxels is too large to simplify, keeping {} merged boxes",
+                    this.sizeX, this.sizeY, this.sizeZ, merged.size());
+            return merged;
+        }
+        return VoxelGrid.of(this).toSimplifiedBoxes(budget);
+    }
+
+    /**
+     * Joins every pair of boxes that are next to each other along the given axis and share the same extent on the others.
+     */
+    private static List<int[]> joinAlong(List<int[]> ranges, int axis) {
+        ranges.sort(Comparator.comparingInt(r -> r[axis]));
+        var other1 = (axis + 1) % 3;
+        var other2 = (axis + 2) % 3;
+        // Boxes still open for joining, keyed by their face on the far side along the axis.
+        var byEnd = new HashMap<FaceKey, int[]>();
+        var out = new ArrayList<int[]>(ranges.size());
+        for (var range : ranges) {
+            var previous = byEnd.remove(new FaceKey(range[other1], range[other2], range[other1 + 3], range[other2 + 3], range[axis] - 1));
+            if (previous != null) {
+                previous[axis + 3] = range[axis + 3];
+            } else {
+                previous = range;
+                out.add(range);
+            }
+            byEnd.put(new FaceKey(previous[other1], previous[other2], previous[other1 + 3], previous[other2 + 3], previous[axis + 3]), previous);
+        }
+        return out;
+    }
+
+    @Override
+    public int sizeX() {
+        return this.sizeX;
+    }
+
+    @Override
+    public int sizeY() {
+        return this.sizeY;
+    }
+
+    @Override
+    public int sizeZ() {
+        return this.sizeZ;
+    }
+
+    @Override
+    public IVector3iImmutable origin() {
+        return this.origin;
+    }
+
+    @Override
+    public int blockResolution() {
+        return this.blockResolution;
+    }
+
+    /**
+     * Counts the nodes in the tree, including leaves, as a measure of how much memory the grid uses.
+     *
+     * @return The number of nodes.
+     */
+    public int nodeCount() {
+        return countNodes(this.root);
+    }
+
+    private void checkBounds(int x, int y, int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= this.sizeX || y >= this.sizeY || z >= this.sizeZ) {
+            throw new IndexOutOfBoundsException("Voxel (%d, %d, %d) is outside of a %dx%dx%d grid".formatted(x, y, z, this.sizeX, this.sizeY, this.sizeZ));
+        }
+    }
+
+    private static int childIndex(int x, int y, int z, int level) {
+        return ((x >> level) & 1) << 2 | ((y >> level) & 1) << 1 | ((z >> level) & 1);
+    }
+
+    private static long brickBit(int x, int y, int z) {
+        return 1L << ((x & 3) << 4 | (y & 3) << 2 | (z & 3));
+    }
+
+    @Nullable
+    private static Node uniformLeaf(Node[] children) {
+        var first = children[0];
+        if (first != EMPTY && first != FULL) {
+            return null;
+        }
+        for (var i = 1; i < 8; i++) {
+            if (children[i] != first) {
+                return null;
+            }
+        }
+        return first;
+    }
+
+    private static Node union(Node a, Node b) {
+        if (a == FULL || b == EMPTY) {
+            return a;
+        }
+        if (b == FULL || a == EMPTY) {
+            return copyNode(b);
+        }
+        if (a.children == null) {
+            // Two bricks.
+            var bits = a.bits | b.bits;
+            return bits == -1L ? FULL : new Node(null, bits);
+        }
+        var children = new Node[8];
+        for (var i = 0; i < 8; i++) {
+            children[i] = union(a.children[i], b.children[i]);
+        }
+        var uniform = uniformLeaf(children);
+        return uniform != null ? uniform : new Node(children, 0L);
+    }
+
+    private static Node copyNode(Node node) {
+        if (node == EMPTY || node == FULL) {
+            return node;
+        }
+        if (node.children == null) {
+            return new Node(null, node.bits);
+        }
+        var children = new Node[8];
+        for (var i = 0; i < 8; i++) {
+            children[i] = copyNode(node.children[i]);
+        }
+        return new Node(children, 0L);
+    }
+
+    private static long count(Node node, int level) {
+        if (node == FULL) {
+            return 1L << (3 * level);
+        }
+        if (node.children == null) {
+            return Long.bitCount(node.bits);
+        }
+        var total = 0L;
+        for (var child : node.children) {
+            total += count(child, level - 1);
+        }
+        return total;
+    }
+
+    private static int countNodes(Node node) {
+        if (node.children == null) {
+            return 1;
+        }
+        var total = 1;
+        for (var child : node.children) {
+            total += countNodes(child);
+        }
+        return total;
+    }
+
+    private static void forEachSet(Node node, int x, int y, int z, int level, VoxelConsumer consumer) {
+        if (node == EMPTY) {
+            return;
+        }
+        var size = 1 << level;
+        if (node == FULL) {
+            // Only voxels inside the grid are ever set, so a full node never extends past its bounds.
+            for (var vX = x; vX < x + size; vX++) {
+                for (var vY = y; vY < y + size; vY++) {
+                    for (var vZ = z; vZ < z + size; vZ++) {
+                        consumer.accept(vX, vY, vZ);
+                    }
+                }
+            }
+            return;
+        }
+        if (node.children == null) {
+            for (var bits = node.bits; bits != 0L; bits &= bits - 1) {
+                var i = Long.numberOfTrailingZeros(bits);
+                consumer.accept(x + (i >> 4), y + ((i >> 2) & 3), z + (i & 3));
+            }
+            return;
+        }
+        var half = size >> 1;
+        for (var i = 0; i < 8; i++) {
+            forEachSet(node.children[i], x + ((i >> 2) & 1) * half, y + ((i >> 1) & 1) * half, z + (i & 1) * half, level - 1, consumer);
+        }
+    }
+
+    private void collectRanges(Node node, int x, int y, int z, int level, List<int[]> out) {
+        if (node == EMPTY) {
+            return;
+        }
+        var size = 1 << level;
+        if (node == FULL) {
+            out.add(new int[]{x, y, z, x + size - 1, y + size - 1, z + size - 1});
+            return;
+        }
+        if (level <= CHUNK_LEVEL) {
+            // Only the part of the node inside the grid can have voxels set.
+            var chunk = new VoxelGrid(IVector3i.ZERO,
+                    Math.min(size, this.sizeX - x), Math.min(size, this.sizeY - y), Math.min(size, this.sizeZ - z), this.blockResolution);
+            forEachSet(node, 0, 0, 0, level, chunk::set);
+            for (var range : chunk.mergeRanges()) {
+                range[0] += x;
+                range[1] += y;
+                range[2] += z;
+                range[3] += x;
+                range[4] += y;
+                range[5] += z;
+                out.add(range);
+            }
+            return;
+        }
+        var half = size >> 1;
+        for (var i = 0; i < 8; i++) {
+            this.collectRanges(node.children[i], x + ((i >> 2) & 1) * half, y + ((i >> 1) & 1) * half, z + (i & 1) * half, level - 1, out);
+        }
+    }
+
+    private static boolean sameTree(Node a, Node b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.children == null || b.children == null) {
+            return a.children == b.children && a.bits == b.bits;
+        }
+        for (var i = 0; i < 8; i++) {
+            if (!sameTree(a.children[i], b.children[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SparseVoxelGrid grid)) return false;
+        return this.hasSameBounds(grid) && this.cardinality == grid.cardinality && sameTree(this.root, grid.root);
+    }
+
+    @Override
+    public int hashCode() {
+        var result = this.origin.hashCode();
+        result = 31 * result + this.sizeX;
+        result = 31 * result + this.sizeY;
+        result = 31 * result + this.sizeZ;
+        result = 31 * result + this.blockResolution;
+        return 31 * result + this.cardinality;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("origin", this.origin)
+                .add("size", "%dx%dx%d".formatted(this.sizeX, this.sizeY, this.sizeZ))
+                .add("blockResolution", this.blockResolution)
+                .add("voxels", this.cardinality)
+                .add("nodes", this.nodeCount())
+                .toString();
+    }
+
+    /**
+     * A node of the tree, one of the shared {@link #EMPTY} and {@link #FULL} leaves, a brick at {@link #BRICK_LEVEL}
+     * holding one bit per voxel, or a branch with eight children. Both are ordered by X, then Y, then Z.
+     */
+    private static final class Node {
+
+        private final Node[] children;
+        private long bits;
+
+        private Node(Node[] children, long bits) {
+            this.children = children;
+            this.bits = bits;
+        }
+
+    }
+
+    /**
+     * The face of a box on the far side along the axis being joined, along with its extent on the other two axes.
+     */
+    private record FaceKey(int min1, int min2, int max1, int max2, int end) {
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.tridevmc.architecture.core.model;
+
+import com.tridevmc.architecture.core.ArchitectureLog;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A set of voxel grids computed ahead of time, keyed the same way as a {@link VoxelCache}.
+ * <p>
+ * The build generates a bundle for every model shipped with the mod using {@link VoxelBundleGenerator}, so that shapes
+ * can skip voxelization entirely at runtime. Entries are keyed on the contents of the model, so a model that has been
+ * changed since the bundle was built, eg by a resource pack, simply isn't found and is voxelized as usual.
+ */
+public final class VoxelBundle {
+
+    /**
+     * The location of the bundle generated for the mod, relative to the root of the jar.
+     */
+    public static final String RESOURCE_PATH = "/data/architecturecraft/voxel_bundle.bin";
+
+    private static final int MAGIC = 0x41564258; // AVBX
+    private static final int FORMAT_VERSION = 1;
+    private static final VoxelBundle EMPTY = new VoxelBundle(Collections.emptyMap());
+
+    private final Map<String, IVoxelGrid> grids;
+
+    private VoxelBundle(Map<String, IVoxelGrid> grids) {
+        this.grids = grids;
+    }
+
+    /**
+     * Creates a new bundle containing the given grids.
+     *
+     * @param grids The grids to include, keyed by {@link VoxelCache#createKey}.
+     * @return The new bundle.
+     */
+    public static VoxelBundle of(@NotNull Map<String, IVoxelGrid> grids) {
+        return new VoxelBundle(new LinkedHashMap<>(grids));
+    }
+
+    /**
+     * Loads the bundle generated for the mod, if there is one.
+     *
+     * @return The bundle, or an empty bundle if it's missing or couldn't be read.
+     */
+    public static VoxelBundle load() {
+        try (var in = VoxelBundle.class.getResourceAsStream(RESOURCE_PATH)) {
+            if (in == null) {
+                ArchitectureLog.debug("No precompiled voxel bundle found, all shapes will be voxelized at runtime.");
+                return EMPTY;
+            }
+            var bundle = VoxelBundle.read(in);
+            ArchitectureLog.debug("Loaded precompiled voxel bundle with {} entries", bundle.size());
+            return bundle;
+        } catch (IOException e) {
+            ArchitectureLog.error("Failed to read precompiled voxel bundle, all shapes will be voxelized at runtime.", e);
+            return EMPTY;
+        }
+    }
+
+    /**
+     * Reads a bundle from the given stream.
+     *
+     * @param stream The stream to read from.
+     * @return The bundle.
+     * @throws IOException If the stream couldn't be read or doesn't contain a bundle.
+     */
+    public static VoxelBundle read(@NotNull InputStream stream) throws IOException {
+        var in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a voxel bundle, or a bundle from a different version of the mod");
+        }
+        var count = in.readInt();
+        var grids = new LinkedHashMap<String, IVoxelGrid>(count);
+        for (var i = 0; i < count; i++) {
+            var key = in.readUTF();
+            try {
+                grids.put(key, IVoxelGrid.compact(VoxelGrid.read(in)));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid grid for entry " + key, e);
+            }
+        }
+        return new VoxelBundle(grids);
+    }
+
+    /**
+     * Writes this bundle to the given stream.
+     *
+     * @param stream The stream to write to, it is not closed.
+     * @throws IOException If the stream couldn't be written to.
+     */
+    public void write(@NotNull OutputStream stream) throws IOException {
+        var out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(this.grids.size());
+        for (var entry : this.grids.entrySet()) {
+            out.writeUTF(entry.getKey());
+            VoxelGrid.of(entry.getValue()).write(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Gets the grid stored under the given key.
+     *
+     * @param key The key of the grid, see {@link VoxelCache#createKey}.
+     * @return The grid, or null if the bundle doesn't contain it.
+     */
+    @Nullable
+    public IVoxelGrid get(@Nullable String key) {
+        return key == null ? null : this.grids.get(key);
+    }
+
+    public int size() {
+        return this.grids.size();
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.tridevmc.architecture.core.model;
+
+import com.tridevmc.architecture.core.ArchitectureLog;
+import com.tridevmc.architecture.core.math.ITrans3;
+import com.tridevmc.architecture.core.model.objson.OBJSON;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Generates the {@link VoxelBundle} shipped with the mod, run by the {@code generateVoxelBundle} task in the build.
+ * <p>
+ * Every OBJSON model under {@code data/<namespace>/objson} is loaded the same way {@link OBJSON#fromResource(ResourceLocation)}
+ * loads it at runtime and voxelized, models that fail to load are skipped and left to be handled at runtime. Models are
+ * voxelized at the default resolution of 16, any model that's also needed at a resolution that doesn't divide it has to
+ * be listed with that resolution as well.
+ * <p>
+ * Symmetric models only have part of their grid evaluated, see {@link Voxelizer#setUseSymmetry(boolean)}. Setting
+ * {@value #VERIFY_PROPERTY} also evaluates those in full and fails if the two differ, which the build does as part of
+ * {@code check}.
+ */
+public final class VoxelBundleGenerator {
+
+    public static final String VERIFY_PROPERTY = "architecturecraft.voxelbundle.verify";
+
+    private VoxelBundleGenerator() {
+    }
+
+    /**
+     * Generates a bundle.
+     *
+     * @param args The resources directory to search for models, which must also be on the classpath, the file to write
+     *             the bundle to, then any extra resolutions to voxelize models at, each as {@code <model>@<resolution>}
+     *             eg {@code architecturecraft:shape/ionic_capital.objson@32}.
+     * @throws IOException If the models couldn't be listed or the bundle couldn't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: VoxelBundleGenerator <resources directory> <output file> [<model>@<resolution>...]");
+        }
+        var resources = Path.of(args[0]);
+        var output = Path.of(args[1]);
+        // Voxelize everything from scratch, the bundle must never pick up stale results from a local cache.
+        VoxelCache.setDefault(null);
+
+        var grids = new LinkedHashMap<String, IVoxelGrid>();
+        try (var namespaces = Files.list(resources.resolve("data"))) {
+            for (var namespace : namespaces.sorted().toList()) {
+                var root = namespace.resolve("objson");
+                if (!Files.isDirectory(root)) {
+                    continue;
+                }
+                try (Stream<Path> models = Files.walk(root)) {
+                    for (var model : models.filter(p -> p.toString().endsWith(".objson")).sorted().toList()) {
+                        var path = root.relativize(model).toString().replace('\\', '/');
+                        addModel(grids, new ResourceLocation(namespace.getFileName().toString(), path), 16);
+                    }
+                }
+            }
+        }
+        for (var i = 2; i < args.length; i++) {
+            var separator = args[i].lastIndexOf('@');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected <model>@<resolution>, got " + args[i]);
+            }
+            addModel(grids, new ResourceLocation(args[i].substring(0, separator)), Integer.parseInt(args[i].substring(separator + 1)));
+        }
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (var out = new BufferedOutputStream(Files.newOutputStream(output))) {
+            VoxelBundle.of(grids).write(out);
+        }
+        VoxelizationScheduler.shutdown();
+        ArchitectureLog.info("Wrote voxel bundle with {} entries to {}", grids.size(), output);
+    }
+
+    private static void addModel(Map<String, IVoxelGrid> grids, ResourceLocation location, int blockResolution) {
+        try {
+            var voxelizer = OBJSON.fromResource(location, ITrans3.BLOCK_CENTER, blockResolution).voxelizer()
+                    .setUseSymmetry(true);
+            var grid = voxelizer.voxelizeGridNow();
+            if (Boolean.getBoolean(VERIFY_PROPERTY)) {
+                verifySymmetry(location, voxelizer, grid);
+            }
+            grids.put(voxelizer.getCacheKey(), grid);
+        } catch (SymmetryMismatchException e) {
+            throw e;
+        } catch (Exception e) {
+            ArchitectureLog.error("Skipping {} at resolution {} in voxel bundle, it will be voxelized at runtime: {}", location, blockResolution, e.toString());
+        }
+    }
+
+    /**
+     * Checks that the grid found by mirroring the evaluated part of a symmetric mesh is exactly the same as evaluating all
+     * of it, failing the build if it isn't.
+     */
+    private static void verifySymmetry(ResourceLocation location, Voxelizer voxelizer, IVoxelGrid grid) {
+        if (!MeshSymmetry.detect(voxelizer.mesh(), voxelizer.blockResolution()).isSymmetric()) {
+            return;
+        }
+        var full = new Voxelizer(voxelizer.mesh(), voxelizer.blockResolution(), voxelizer.fillMode()).voxelizeGridNow();
+        if (!full.contentEquals(grid)) {
+            throw new SymmetryMismatchException("Symmetric voxelization of %s at resolution %d differs from full evaluation"
+                    .formatted(location, voxelizer.blockResolution()));
+        }
+    }
+
+    /**
+     * Thrown when a bundled grid found using symmetry differs from evaluating every voxel, which fails the build rather
+     * than skipping the model like any other error.
+     */
+    private static final class SymmetryMismatchException extends RuntimeException {
+
+        private SymmetryMismatchException(String message) {
+            super(message);
+        }
+
+    }
+
+}
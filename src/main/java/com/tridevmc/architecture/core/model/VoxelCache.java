@@ -0,0 +1,169 @@
+package com.tridevmc.architecture.core.model;
+
+import com.tridevmc.architecture.core.ArchitectureLog;
+import com.tridevmc.architecture.core.math.ITrans3;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Stores the results of voxelization on disk so they can be reused between launches.
+ * <p>
+ * Each grid is stored in its own file, named after a key built from everything that affects the result: the contents of
+ * the model file, the transform applied to the mesh, the resolution and {@link Voxelizer#VERSION}. A change to any of
+ * those produces a different key, so stale entries are never read. Failing to read or write an entry is never fatal,
+ * the grid is just computed again.
+ */
+public final class VoxelCache {
+
+    private static final int MAGIC = 0x41564358; // AVCX
+    private static final int FORMAT_VERSION = 1;
+    private static final String EXTENSION = ".voxels";
+
+    @Nullable
+    private static VoxelCache defaultCache;
+
+    private final Path directory;
+
+    /**
+     * Creates a new cache that stores its entries in the given directory.
+     *
+     * @param directory The directory to store entries in, created when the first entry is written.
+     */
+    public VoxelCache(@NotNull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the cache used by voxelizers that have a cache key, if one has been set.
+     *
+     * @return The default cache, or null if results shouldn't be cached.
+     */
+    @Nullable
+    public static VoxelCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Sets the cache used by voxelizers that have a cache key.
+     *
+     * @param cache The cache to use, or null to stop caching results.
+     */
+    public static void setDefault(@Nullable VoxelCache cache) {
+        defaultCache = cache;
+    }
+
+    /**
+     * Creates a key identifying the result of voxelizing a model.
+     *
+     * @param content         The contents of the model file.
+     * @param transform       The transform applied to the mesh of the model before voxelizing it.
+     * @param blockResolution The resolution the model is voxelized at.
+     * @return A key that changes whenever any of the inputs, or the voxelizer itself, changes.
+     */
+    public static String createKey(byte[] content, @NotNull ITrans3 transform, int blockResolution) {
+        return createKey(ByteBuffer.wrap(content), transform, blockResolution);
+    }
+
+    /**
+     * Creates a key identifying the result of voxelizing a model, see {@link #createKey(byte[], ITrans3, int)}.
+     *
+     * @param content         The contents of the model file, from its position to its limit. The position is left untouched.
+     * @param transform       The transform applied to the mesh of the model before voxelizing it.
+     * @param blockResolution The resolution the model is voxelized at.
+     * @return A key that changes whenever any of the inputs, or the voxelizer itself, changes.
+     */
+    public static String createKey(@NotNull ByteBuffer content, @NotNull ITrans3 transform, int blockResolution) {
+        var m = transform.matrix();
+        var header = ByteBuffer.allocate(Integer.BYTES * 2 + Double.BYTES * 16)
+                .putInt(Voxelizer.VERSION)
+                .putInt(blockResolution);
+        for (var value : new double[]{
+                m.m00(), m.m01(), m.m02(), m.m03(),
+                m.m10(), m.m11(), m.m12(), m.m13(),
+                m.m20(), m.m21(), m.m22(), m.m23(),
+                m.m30(), m.m31(), m.m32(), m.m33()}) {
+            header.putDouble(value);
+        }
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(header.array());
+            digest.update(content.duplicate());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Reads the grid stored under the given key.
+     *
+     * @param key The key of the entry.
+     * @return The stored grid, or null if there's no valid entry for the key.
+     */
+    @Nullable
+    public IVoxelGrid load(@NotNull String key) {
+        var file = this.directory.resolve(key + EXTENSION);
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+                ArchitectureLog.debug("Ignoring invalid voxel cache entry {}", file);
+                return null;
+            }
+            return IVoxelGrid.compact(VoxelGrid.read(in));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            ArchitectureLog.error("Failed to read voxel cache entry {}, it will be recomputed", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a grid under the given key, replacing any existing entry.
+     *
+     * @param key  The key of the entry.
+     * @param grid The grid to store.
+     */
+    public void store(@NotNull String key, @NotNull IVoxelGrid grid) {
+        var file = this.directory.resolve(key + EXTENSION);
+        Path temp = null;
+        try {
+            Files.createDirectories(this.directory);
+            // Write to a temporary file first so a crash part way through never leaves a truncated entry behind.
+            temp = Files.createTempFile(this.directory, key, ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(key);
+                VoxelGrid.of(grid).write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            ArchitectureLog.error("Failed to write voxel cache entry {}", file, e);
+            try {
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public Path directory() {
+        return this.directory;
+    }
+
+}
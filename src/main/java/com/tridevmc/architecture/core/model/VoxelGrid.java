@@ -0,0 +1,537 @@
+package com.tridevmc.architecture.core.model;
+
+import com.google.common.base.MoreObjects;
+import com.tridevmc.architecture.core.math.integer.IVector3i;
+import com.tridevmc.architecture.core.math.integer.IVector3iImmutable;
+import com.tridevmc.architecture.core.physics.AABB;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A fixed size grid of voxels, stored as a packed bitset with one bit per voxel. This is the representation
+ * {@link IVoxelGrid#create} uses for all but the largest grids.
+ * <p>
+ * Voxels are addressed by their offset from the origin of the grid, the origin itself being the position of the first
+ * voxel in units of voxels, ie a grid at a resolution of 16 with an origin of (-1, 0, 0) starts 1/16th of a block
+ * below zero on the X axis. Bits are laid out with Z changing fastest and X slowest, which is also the order
+ * {@link #forEachSet(VoxelConsumer)} visits voxels in.
+ * <p>
+ * Grids are not thread safe, writing to voxels that share a word from multiple threads will lose updates. Build a grid
+ * per thread and combine them with {@link #or(VoxelGrid)} instead.
+ */
+public final class VoxelGrid implements IVoxelGrid {
+
+    private final IVector3iImmutable origin;
+    private final int sizeX, sizeY, sizeZ;
+    private final int blockResolution;
+    private final long[] words;
+
+    /**
+     * Creates a new empty grid.
+     *
+     * @param origin          The position of the first voxel in the grid, in units of voxels.
+     * @param sizeX           The number of voxels on the X axis.
+     * @param sizeY           The number of voxels on the Y axis.
+     * @param sizeZ           The number of voxels on the Z axis.
+     * @param blockResolution The number of voxels per block.
+     */
+    public VoxelGrid(@NotNull IVector3i origin, int sizeX, int sizeY, int sizeZ, int blockResolution) {
+        if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive, got %dx%dx%d".formatted(sizeX, sizeY, sizeZ));
+        }
+        this.origin = origin.asImmutable();
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.blockResolution = blockResolution;
+        this.words = new long[(int) (((long) sizeX * sizeY * sizeZ + 63) >>> 6)];
+    }
+
+    private VoxelGrid(VoxelGrid other, long[] words) {
+        this.origin = other.origin;
+        this.sizeX = other.sizeX;
+        this.sizeY = other.sizeY;
+        this.sizeZ = other.sizeZ;
+        this.blockResolution = other.blockResolution;
+        this.words = words;
+    }
+
+    /**
+     * Gets the given grid as a dense grid.
+     *
+     * @param grid The grid to convert.
+     * @return The given grid if it's already dense, otherwise a dense copy of it.
+     */
+    public static VoxelGrid of(@NotNull IVoxelGrid grid) {
+        if (grid instanceof VoxelGrid dense) {
+            return dense;
+        }
+        var out = new VoxelGrid(grid.origin(), grid.sizeX(), grid.sizeY(), grid.sizeZ(), grid.blockResolution());
+        grid.forEachSet(out::set);
+        return out;
+    }
+
+    @Override
+    public VoxelGrid emptyCopy() {
+        return new VoxelGrid(this, new long[this.words.length]);
+    }
+
+    @Override
+    public VoxelGrid copy() {
+        return new VoxelGrid(this, this.words.clone());
+    }
+
+    @Override
+    public boolean get(int x, int y, int z) {
+        var index = this.index(x, y, z);
+        return (this.words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public void set(int x, int y, int z) {
+        var index = this.index(x, y, z);
+        this.words[index >>> 6] |= 1L << index;
+    }
+
+    @Override
+    public void clear(int x, int y, int z) {
+        var index = this.index(x, y, z);
+        this.words[index >>> 6] &= ~(1L << index);
+    }
+
+    @Override
+    public int cardinality() {
+        var count = 0;
+        for (var word : this.words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (var word : this.words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public VoxelGrid or(@NotNull IVoxelGrid other) {
+        this.checkCompatible(other);
+        if (other instanceof VoxelGrid dense) {
+            for (var i = 0; i < this.words.length; i++) {
+                this.words[i] |= dense.words[i];
+            }
+        } else {
+            other.forEachSet(this::set);
+        }
+        return this;
+    }
+
+    /**
+     * Clears every voxel that isn't set in the given grid, the grids must have the same dimensions and origin.
+     *
+     * @param other The grid to combine with this one.
+     * @return This grid.
+     */
+    public VoxelGrid and(@NotNull VoxelGrid other) {
+        this.checkCompatible(other);
+        for (var i = 0; i < this.words.length; i++) {
+            this.words[i] &= other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * Creates a new grid containing every voxel set in either this grid or the given grid.
+     *
+     * @param other The grid to combine with this one.
+     * @return The union of the two grids.
+     */
+    public VoxelGrid union(@NotNull VoxelGrid other) {
+        return this.copy().or(other);
+    }
+
+    /**
+     * Creates a new grid containing every voxel set in both this grid and the given grid.
+     *
+     * @param other The grid to combine with this one.
+     * @return The intersection of the two grids.
+     */
+    public VoxelGrid intersection(@NotNull VoxelGrid other) {
+        return this.copy().and(other);
+    }
+
+    /**
+     * Creates a new grid one voxel thick containing a single layer of this grid.
+     *
+     * @param axis  The axis to slice along, 0 for X, 1 for Y and 2 for Z.
+     * @param index The offset of the layer from the origin along the given axis.
+     * @return A grid containing only the given layer, positioned where the layer sits in this grid.
+     */
+    public VoxelGrid slice(int axis, int index) {
+        var size = this.size(axis);
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Slice %d is outside of the grid along axis %d, size %d".formatted(index, axis, size));
+        }
+        var slice = new VoxelGrid(
+                IVector3i.ofImmutable(
+                        this.origin.x() + (axis == 0 ? index : 0),
+                        this.origin.y() + (axis == 1 ? index : 0),
+                        this.origin.z() + (axis == 2 ? index : 0)
+                ),
+                axis == 0 ? 1 : this.sizeX,
+                axis == 1 ? 1 : this.sizeY,
+                axis == 2 ? 1 : this.sizeZ,
+                this.blockResolution
+        );
+        this.forEachSet((x, y, z) -> {
+            var position = axis == 0 ? x : axis == 1 ? y : z;
+            if (position == index) {
+                slice.set(axis == 0 ? 0 : x, axis == 1 ? 0 : y, axis == 2 ? 0 : z);
+            }
+        });
+        return slice;
+    }
+
+    /**
+     * Visits every set voxel in the grid, in order of increasing X, then Y, then Z.
+     *
+     * @param consumer The consumer to pass the offset of each set voxel to.
+     */
+    @Override
+    public void forEachSet(@NotNull VoxelConsumer consumer) {
+        var sizeYZ = this.sizeY * this.sizeZ;
+        for (var w = 0; w < this.words.length; w++) {
+            var word = this.words[w];
+            while (word != 0) {
+                var index = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                var x = index / sizeYZ;
+                var rest = index - x * sizeYZ;
+                consumer.accept(x, rest / this.sizeZ, rest % this.sizeZ);
+            }
+        }
+    }
+
+    /**
+     * Creates a set of boxes covering exactly the set voxels in the grid, merging neighbouring voxels where possible.
+     * <p>
+     * Boxes are grown greedily from the first remaining voxel, first along the X axis, then across the Y axis while every
+     * voxel in the row is set, then across the Z axis while every voxel in the face is set. This isn't guaranteed to find
+     * the fewest boxes, but solid regions such as slabs collapse into a single box.
+     *
+     * @return A list of non-overlapping boxes covering every set voxel.
+     */
+    @Override
+    public List<AABB> toMergedBoxes() {
+        return this.toBoxes(this.mergeRanges());
+    }
+
+    /**
+     * Creates a set of at most {@link BoxBudget#maxBoxes()} boxes covering every set voxel in the grid, and possibly some
+     * empty ones, as long as the number of empty voxels covered stays within {@link BoxBudget#maxError()}.
+     * <p>
+     * Starting from the boxes of {@link #toMergedBoxes()}, the pair of boxes whose bounding box covers the fewest voxels
+     * that aren't already covered is repeatedly replaced with that bounding box, along with any other box inside it. This
+     * is greedy, so it isn't guaranteed to find the most accurate set of boxes, but it never leaves a set voxel uncovered.
+     *
+     * @param budget The limits on the number of boxes and the error.
+     * @return A list of boxes covering every set voxel, which may overlap.
+     */
+    @Override
+    public List<AABB> toSimplifiedBoxes(@NotNull BoxBudget budget) {
+        var ranges = this.mergeRanges();
+        if (budget.isExact() || ranges.size() <= budget.maxBoxes()) {
+            return this.toBoxes(ranges);
+        }
+
+        var covered = this.copy();
+        var allowedError = (long) Math.floor(budget.maxError() * this.cardinality());
+        var error = 0L;
+        while (ranges.size() > budget.maxBoxes()) {
+            var sums = covered.prefixSums();
+            int[] best = null;
+            var bestCost = Long.MAX_VALUE;
+            var bestVolume = Long.MAX_VALUE;
+            for (var i = 0; i < ranges.size(); i++) {
+                for (var j = i + 1; j < ranges.size(); j++) {
+                    var union = union(ranges.get(i), ranges.get(j));
+                    var volume = volume(union);
+                    var cost = volume - covered.count(sums, union);
+                    if (cost < bestCost || (cost == bestCost && volume < bestVolume)) {
+                        best = union;
+                        bestCost = cost;
+                        bestVolume = volume;
+                    }
+                }
+            }
+            if (best == null || error + bestCost > allowedError) {
+                break;
+            }
+            error += bestCost;
+            covered.fill(best);
+            var merged = best;
+            ranges.removeIf(r -> contains(merged, r));
+            ranges.add(merged);
+        }
+        return this.toBoxes(ranges);
+    }
+
+    /**
+     * Finds the boxes for {@link #toMergedBoxes()}, as inclusive ranges of voxels in the order min X, Y, Z then max X, Y, Z.
+     */
+    List<int[]> mergeRanges() {
+        var boxes = new ArrayList<int[]>();
+        var remaining = this.copy();
+        remaining.forEachSet((x, y, z) -> {
+            if (!remaining.get(x, y, z)) {
+                // Already covered by an earlier box.
+                return;
+            }
+            var maxX = x;
+            while (maxX + 1 < this.sizeX && remaining.get(maxX + 1, y, z)) {
+                maxX++;
+            }
+            var maxY = y;
+            while (maxY + 1 < this.sizeY && remaining.isFilled(x, maxY + 1, z, maxX, maxY + 1, z)) {
+                maxY++;
+            }
+            var maxZ = z;
+            while (maxZ + 1 < this.sizeZ && remaining.isFilled(x, y, maxZ + 1, maxX, maxY, maxZ + 1)) {
+                maxZ++;
+            }
+            remaining.clear(x, y, z, maxX, maxY, maxZ);
+            boxes.add(new int[]{x, y, z, maxX, maxY, maxZ});
+        });
+        return boxes;
+    }
+
+    private List<AABB> toBoxes(List<int[]> ranges) {
+        var boxes = new ArrayList<AABB>(ranges.size());
+        for (var r : ranges) {
+            boxes.add(this.getBox(r[0], r[1], r[2], r[3], r[4], r[5]));
+        }
+        return boxes;
+    }
+
+    /**
+     * Counts the set voxels in each box from the origin to every corner, so the number of set voxels in any range can be
+     * found with {@link #count(int[], int[])} without visiting them.
+     */
+    private int[] prefixSums() {
+        var strideZ = this.sizeZ + 1;
+        var strideY = (this.sizeY + 1) * strideZ;
+        var sums = new int[(this.sizeX + 1) * strideY];
+        for (var x = 1; x <= this.sizeX; x++) {
+            for (var y = 1; y <= this.sizeY; y++) {
+                for (var z = 1; z <= this.sizeZ; z++) {
+                    var i = x * strideY + y * strideZ + z;
+                    sums[i] = (this.get(x - 1, y - 1, z - 1) ? 1 : 0)
+                            + sums[i - strideY] + sums[i - strideZ] + sums[i - 1]
+                            - sums[i - strideY - strideZ] - sums[i - strideY - 1] - sums[i - strideZ - 1]
+                            + sums[i - strideY - strideZ - 1];
+                }
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Counts the set voxels in the given inclusive range using sums from {@link #prefixSums()}.
+     */
+    private long count(int[] sums, int[] range) {
+        var strideZ = this.sizeZ + 1;
+        var strideY = (this.sizeY + 1) * strideZ;
+        int x0 = range[0] * strideY, y0 = range[1] * strideZ, z0 = range[2];
+        int x1 = (range[3] + 1) * strideY, y1 = (range[4] + 1) * strideZ, z1 = range[5] + 1;
+        return sums[x1 + y1 + z1] - sums[x0 + y1 + z1] - sums[x1 + y0 + z1] - sums[x1 + y1 + z0]
+                + sums[x0 + y0 + z1] + sums[x0 + y1 + z0] + sums[x1 + y0 + z0] - sums[x0 + y0 + z0];
+    }
+
+    /**
+     * Sets every voxel in the given inclusive range.
+     */
+    private void fill(int[] range) {
+        for (var x = range[0]; x <= range[3]; x++) {
+            for (var y = range[1]; y <= range[4]; y++) {
+                for (var z = range[2]; z <= range[5]; z++) {
+                    this.set(x, y, z);
+                }
+            }
+        }
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        return new int[]{
+                Math.min(a[0], b[0]), Math.min(a[1], b[1]), Math.min(a[2], b[2]),
+                Math.max(a[3], b[3]), Math.max(a[4], b[4]), Math.max(a[5], b[5])
+        };
+    }
+
+    private static long volume(int[] range) {
+        return (long) (range[3] - range[0] + 1) * (range[4] - range[1] + 1) * (range[5] - range[2] + 1);
+    }
+
+    private static boolean contains(int[] outer, int[] inner) {
+        return outer[0] <= inner[0] && outer[1] <= inner[1] && outer[2] <= inner[2]
+                && outer[3] >= inner[3] && outer[4] >= inner[4] && outer[5] >= inner[5];
+    }
+
+    /**
+     * Checks if every voxel in the given inclusive range is set.
+     */
+    private boolean isFilled(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (var x = minX; x <= maxX; x++) {
+            for (var y = minY; y <= maxY; y++) {
+                for (var z = minZ; z <= maxZ; z++) {
+                    if (!this.get(x, y, z)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Clears every voxel in the given inclusive range.
+     */
+    private void clear(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (var x = minX; x <= maxX; x++) {
+            for (var y = minY; y <= maxY; y++) {
+                for (var z = minZ; z <= maxZ; z++) {
+                    this.clear(x, y, z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the box covering every voxel in the given inclusive range, in block space.
+     */
+    private AABB getBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        var resolution = 1.0D / this.blockResolution;
+        return new AABB(
+                (minX + this.origin.x()) * resolution,
+                (minY + this.origin.y()) * resolution,
+                (minZ + this.origin.z()) * resolution,
+                (maxX + 1 + this.origin.x()) * resolution,
+                (maxY + 1 + this.origin.y()) * resolution,
+                (maxZ + 1 + this.origin.z()) * resolution
+        );
+    }
+
+    @Override
+    public int sizeX() {
+        return this.sizeX;
+    }
+
+    @Override
+    public int sizeY() {
+        return this.sizeY;
+    }
+
+    @Override
+    public int sizeZ() {
+        return this.sizeZ;
+    }
+
+    @Override
+    public IVector3iImmutable origin() {
+        return this.origin;
+    }
+
+    @Override
+    public int blockResolution() {
+        return this.blockResolution;
+    }
+
+    /**
+     * Writes the grid in the binary form read by {@link #read(DataInput)}.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(this.origin.x());
+        out.writeInt(this.origin.y());
+        out.writeInt(this.origin.z());
+        out.writeInt(this.sizeX);
+        out.writeInt(this.sizeY);
+        out.writeInt(this.sizeZ);
+        out.writeInt(this.blockResolution);
+        out.writeInt(this.words.length);
+        for (var word : this.words) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Reads a grid written by {@link #write(DataOutput)}.
+     *
+     * @throws IllegalArgumentException If the stored dimensions don't match the stored bits.
+     */
+    static VoxelGrid read(DataInput in) throws IOException {
+        var origin = IVector3i.ofImmutable(in.readInt(), in.readInt(), in.readInt());
+        int sizeX = in.readInt(), sizeY = in.readInt(), sizeZ = in.readInt();
+        var grid = new VoxelGrid(origin, sizeX, sizeY, sizeZ, in.readInt());
+        var length = in.readInt();
+        if (length != grid.words.length) {
+            throw new IllegalArgumentException("Expected %d words for a %dx%dx%d grid, got %d".formatted(grid.words.length, sizeX, sizeY, sizeZ, length));
+        }
+        for (var i = 0; i < length; i++) {
+            grid.words[i] = in.readLong();
+        }
+        return grid;
+    }
+
+    private int index(int x, int y, int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= this.sizeX || y >= this.sizeY || z >= this.sizeZ) {
+            throw new IndexOutOfBoundsException("Voxel (%d, %d, %d) is outside of a %dx%dx%d grid".formatted(x, y, z, this.sizeX, this.sizeY, this.sizeZ));
+        }
+        return (x * this.sizeY + y) * this.sizeZ + z;
+    }
+
+    private void checkCompatible(IVoxelGrid other) {
+        if (!this.hasSameBounds(other)) {
+            throw new IllegalArgumentException("Cannot combine grids with different dimensions, origins or resolutions");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof VoxelGrid grid)) return false;
+        return this.sizeX == grid.sizeX && this.sizeY == grid.sizeY && this.sizeZ == grid.sizeZ
+                && this.blockResolution == grid.blockResolution && this.origin.equals(grid.origin)
+                && Arrays.equals(this.words, grid.words);
+    }
+
+    @Override
+    public int hashCode() {
+        var result = this.origin.hashCode();
+        result = 31 * result + this.sizeX;
+        result = 31 * result + this.sizeY;
+        result = 31 * result + this.sizeZ;
+        result = 31 * result + this.blockResolution;
+        return 31 * result + Arrays.hashCode(this.words);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("origin", this.origin)
+                .add("size", "%dx%dx%d".formatted(this.sizeX, this.sizeY, this.sizeZ))
+                .add("blockResolution", this.blockResolution)
+                .add("voxels", this.cardinality())
+                .toString();
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.tridevmc.architecture.core.model;
+
+import com.tridevmc.architecture.core.ArchitectureLog;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A bounded pool shared by every voxelization job.
+ * <p>
+ * Jobs run on a dedicated {@link ForkJoinPool} rather than the common pool, and split their work into chunks with
+ * {@link #invokeAll(List)} so that waiting on a chunk helps run the others instead of blocking a thread. The number of
+ * threads defaults to one less than the number of cores and can be set with the {@value #PARALLELISM_PROPERTY} system
+ * property, or with {@link #configure(int)} before any work is submitted.
+ * <p>
+ * The pool is created on first use and torn down by {@link #shutdown()}, which also cancels any unfinished jobs. Work
+ * submitted after a shutdown starts a new pool.
+ */
+public final class VoxelizationScheduler {
+
+    public static final String PARALLELISM_PROPERTY = "architecturecraft.voxelizer.parallelism";
+
+    private static VoxelizationScheduler instance;
+    private static int parallelism = Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors() - 1));
+
+    private final ForkJoinPool pool;
+    private final Map<Job, CompletableFuture<?>> jobs = new ConcurrentHashMap<>();
+
+    private VoxelizationScheduler(int parallelism) {
+        var threadCount = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("Architecture-Voxelizer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Gets the scheduler, creating it if it doesn't exist yet.
+     *
+     * @return The scheduler.
+     */
+    public static synchronized VoxelizationScheduler get() {
+        if (instance == null) {
+            ArchitectureLog.debug("Starting voxelization scheduler with parallelism {}", parallelism);
+            instance = new VoxelizationScheduler(parallelism);
+        }
+        return instance;
+    }
+
+    /**
+     * Sets the number of threads used for voxelization, restarting the scheduler if it's already running.
+     *
+     * @param parallelism The number of threads to use, must be at least 1.
+     */
+    public static synchronized void configure(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Voxelization parallelism must be at least 1, got " + parallelism);
+        }
+        VoxelizationScheduler.parallelism = parallelism;
+        shutdown();
+    }
+
+    /**
+     * Cancels every unfinished job and stops the threads of the scheduler, if it's running.
+     */
+    public static synchronized void shutdown() {
+        if (instance == null) {
+            return;
+        }
+        var scheduler = instance;
+        instance = null;
+        // Cancelling the futures flags each job to stop, and completes those still waiting in the queue.
+        var unfinished = List.copyOf(scheduler.jobs.values());
+        unfinished.forEach(f -> f.cancel(false));
+        scheduler.pool.shutdownNow();
+        try {
+            if (!scheduler.pool.awaitTermination(5, TimeUnit.SECONDS)) {
+                ArchitectureLog.error("Voxelization scheduler did not stop within 5 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ArchitectureLog.debug("Stopped voxelization scheduler, cancelled {} unfinished jobs", unfinished.size());
+    }
+
+    /**
+     * Runs the given work on the scheduler.
+     * <p>
+     * Cancelling the returned future marks the job as cancelled, the work is expected to check {@link Job#checkCancelled()}
+     * between chunks and stop early.
+     *
+     * @param work The work to run, given the job it runs as.
+     * @param <T>  The type of the result.
+     * @return A future that completes with the result of the work.
+     */
+    public <T> CompletableFuture<T> submit(@NotNull Function<Job, T> work) {
+        var job = new Job(this);
+        var future = new CompletableFuture<T>();
+        this.jobs.put(job, future);
+        future.whenComplete((r, t) -> {
+            if (future.isCancelled()) {
+                job.cancel();
+            }
+            this.jobs.remove(job);
+        });
+        try {
+            this.pool.execute(() -> {
+                try {
+                    job.checkCancelled();
+                    future.complete(work.apply(job));
+                } catch (Throwable t) {
+                    future.completeExceptionally(job.isCancelled() ? new CancellationException("Voxelization was cancelled") : t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The scheduler was shut down between being fetched and the work being submitted.
+            future.completeExceptionally(new CancellationException("Voxelization scheduler has been shut down"));
+        }
+        return future;
+    }
+
+    /**
+     * Runs every chunk on the scheduler and waits for all of them to finish.
+     * <p>
+     * When called from a job the calling thread runs chunks too, rather than blocking while it waits.
+     *
+     * @param chunks The chunks to run.
+     * @param <T>    The type of the result of each chunk.
+     * @return The results of the chunks, in the same order.
+     */
+    public <T> List<T> invokeAll(@NotNull List<? extends Callable<T>> chunks) {
+        if (ForkJoinTask.getPool() != this.pool) {
+            return this.pool.submit(() -> this.invokeAll(chunks)).join();
+        }
+        var tasks = chunks.stream().map(ForkJoinTask::adapt).toList();
+        ForkJoinTask.invokeAll(tasks);
+        return tasks.stream().map(ForkJoinTask::join).toList();
+    }
+
+    /**
+     * Gets the number of threads work is spread over.
+     *
+     * @return The parallelism of the scheduler.
+     */
+    public int parallelism() {
+        return this.pool.getParallelism();
+    }
+
+    /**
+     * A unit of work submitted to the scheduler, used to check if it's been cancelled.
+     */
+    public static final class Job {
+
+        private final VoxelizationScheduler scheduler;
+        private volatile boolean cancelled;
+
+        private Job(VoxelizationScheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * Gets the scheduler the job was submitted to, which any work it splits off should also run on.
+         * <p>
+         * Unlike {@link VoxelizationScheduler#get()} this never starts a new pool, so a job still running after a
+         * {@link #shutdown()} doesn't bring the scheduler back.
+         *
+         * @return The scheduler running the job.
+         */
+        public VoxelizationScheduler getScheduler() {
+            return this.scheduler;
+        }
+
+        private void cancel() {
+            this.cancelled = true;
+        }
+
+        /**
+         * Checks if the job has been cancelled.
+         *
+         * @return True if the job has been cancelled, false otherwise.
+         */
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        /**
+         * Stops the job if it's been cancelled.
+         *
+         * @throws CancellationException If the job has been cancelled.
+         */
+        public void checkCancelled() {
+            if (this.cancelled) {
+                throw new CancellationException("Voxelization was cancelled");
+            }
+        }
+
+    }
+
+}
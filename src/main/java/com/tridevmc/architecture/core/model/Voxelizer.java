@@ -1,39 +1,64 @@
 package com.tridevmc.architecture.core.model;
 
-import com.google.common.collect.Lists;
 import com.tridevmc.architecture.core.ArchitectureLog;
+import com.tridevmc.architecture.core.math.ITrans3;
 import com.tridevmc.architecture.core.math.IVector3;
 import com.tridevmc.architecture.core.math.integer.IVector3i;
 import com.tridevmc.architecture.core.model.mesh.IMesh;
+import com.tridevmc.architecture.core.model.mesh.IPolygon;
 import com.tridevmc.architecture.core.model.mesh.IPolygonData;
 import com.tridevmc.architecture.core.physics.AABB;
 import com.tridevmc.architecture.core.physics.Ray;
-import it.unimi.dsi.fastutil.objects.ObjectDoubleImmutablePair;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Performs a series of collision tests on a given mesh to create a voxelized representation of it.
  */
 public class Voxelizer {
 
-    private static final ExecutorService POOL = Executors.newCachedThreadPool();
+    /**
+     * The version of the voxelization algorithm, bump this whenever a change could alter the output so that results
+     * stored in a {@link VoxelCache} are recomputed.
+     */
+    public static final int VERSION = 2;
+
     private static final IVector3 xNormal = IVector3.UNIT_X;
     private static final IVector3 yNormal = IVector3.UNIT_Y;
     private static final IVector3 zNormal = IVector3.UNIT_Z;
+    // Hits within this distance of each other are treated as equally close when deciding if a point is inside the mesh.
+    private static final double HIT_TOLERANCE = 1E-6;
+    // Allowance for rounding error when checking if a voxel lies on the plane of a polygon.
+    private static final double PLANE_TOLERANCE = 1E-9;
+    // The number of batches the polygons of a mesh are split into per voxelization thread when marking surface voxels.
+    private static final int SURFACE_BATCHES_PER_THREAD = 2;
 
     private final IMesh<?, ? extends IPolygonData<?>> mesh;
     private final int blockResolution;
     private final double resolution;
     private final IVector3i min, max;
-    private final boolean[][][] voxels;
+    private final FillMode fillMode;
+    @Nullable
+    private String cacheKey;
+    private boolean useSymmetry;
+    private CompletableFuture<IVoxelGrid> gridFuture;
     private CompletableFuture<List<AABB>> simplifiedVoxelsFuture;
+    private final Map<Integer, CompletableFuture<IVoxelGrid>> downsampledGrids = new ConcurrentHashMap<>();
+    private final Map<TransformKey, CompletableFuture<IVoxelGrid>> transformedGrids = new ConcurrentHashMap<>();
+    private final Map<TransformKey, CompletableFuture<List<AABB>>> transformedBoxes = new ConcurrentHashMap<>();
+    private final Map<SimplifiedKey, CompletableFuture<List<AABB>>> simplifiedBoxes = new ConcurrentHashMap<>();
+    private final Map<GridTransform, CompletableFuture<IVoxelGrid>> solidGrids = new ConcurrentHashMap<>();
 
     /**
      * Creates a new voxelizer for the given mesh.
@@ -42,8 +67,20 @@ public class Voxelizer {
      * @param blockResolution The resolution of the voxel grid, in terms of voxels per 1 unit of length.
      */
     public Voxelizer(IMesh<?, ?> mesh, int blockResolution) {
+        this(mesh, blockResolution, FillMode.SCANLINE);
+    }
+
+    /**
+     * Creates a new voxelizer for the given mesh.
+     *
+     * @param mesh            The mesh to voxelize.
+     * @param blockResolution The resolution of the voxel grid, in terms of voxels per 1 unit of length.
+     * @param fillMode        The strategy used to find the voxels inside the mesh.
+     */
+    public Voxelizer(IMesh<?, ?> mesh, int blockResolution, FillMode fillMode) {
         this.mesh = mesh;
         this.blockResolution = blockResolution;
+        this.fillMode = fillMode;
         this.resolution = 1.0D / blockResolution;
 
         var minXBounds = this.mesh.getBounds().minX();
@@ -62,14 +99,12 @@ public class Voxelizer {
 
         this.min = IVector3i.ofImmutable(minX, minY, minZ);
         this.max = IVector3i.ofImmutable(maxX, maxY, maxZ);
-
-        this.voxels = new boolean[maxX - minX + 1][maxY - minY + 1][maxZ - minZ + 1];
     }
 
-    private List<AABB> getSimplifiedVoxelsResultSafely() {
-        Objects.requireNonNull(this.simplifiedVoxelsFuture, "Voxelization has not been started yet, call voxelize() first.");
+    private <T> T getResultSafely(CompletableFuture<T> future) {
+        Objects.requireNonNull(future, "Voxelization has not been started yet, call voxelize() first.");
         try {
-            return this.simplifiedVoxelsFuture.get();
+            return future.get();
         } catch (Exception e) {
             ArchitectureLog.error("Failed to voxelize mesh {}, throwing exception", this.mesh);
             throw new RuntimeException("Failed to voxelize mesh " + this.mesh, e);
@@ -79,49 +114,515 @@ public class Voxelizer {
     /**
      * Performs the voxelization process, blocking until completion.
      *
-     * @return A list of AABBs representing the voxels that were found to be occupied.
+     * @return A grid containing every voxel that was found to be occupied.
+     */
+    public IVoxelGrid voxelizeGridNow() {
+        return this.getResultSafely(this.voxelizeGrid());
+    }
+
+    /**
+     * Performs the voxelization process asynchronously.
+     *
+     * @return A future that will complete with a grid containing every voxel that was found to be occupied.
+     */
+    public synchronized CompletableFuture<IVoxelGrid> voxelizeGrid() {
+        if (this.gridFuture != null && !this.gridFuture.isCancelled()) {
+            ArchitectureLog.debug("Voxelization of mesh {} has already been started, returning existing future.", this.mesh.getName());
+            return this.gridFuture;
+        }
+
+        // Work runs on the shared scheduler, and is started again if a previous attempt was cancelled.
+        this.gridFuture = VoxelizationScheduler.get().submit(this::loadOrComputeVoxels);
+        this.simplifiedVoxelsFuture = null;
+        this.downsampledGrids.clear();
+        this.transformedGrids.clear();
+        this.transformedBoxes.clear();
+        this.simplifiedBoxes.clear();
+        this.solidGrids.clear();
+        return this.gridFuture;
+    }
+
+    /**
+     * Cancels the voxelization process if it's still running, a later call to {@link #voxelizeGrid()} starts it again.
+     *
+     * @return True if the voxelization process was cancelled, false if it had already finished or wasn't started.
+     */
+    public synchronized boolean cancel() {
+        return this.gridFuture != null && this.gridFuture.cancel(false);
+    }
+
+    /**
+     * Performs the voxelization process, blocking until completion.
+     *
+     * @return A list of AABBs covering the voxels that were found to be occupied.
      */
     public List<AABB> voxelizeNow() {
+        return this.getResultSafely(this.voxelize());
+    }
+
+    /**
+     * Performs the voxelization process asynchronously.
+     * <p>
+     * The boxes are derived from the result of {@link #voxelizeGrid()} the first time they're requested, with neighbouring
+     * voxels merged into larger boxes by {@link IVoxelGrid#toMergedBoxes()}.
+     *
+     * @return A future that will complete with a list of AABBs covering the voxels that were found to be occupied.
+     */
+    public synchronized CompletableFuture<List<AABB>> voxelize() {
+        // The boxes fail along with the grid if it's cancelled, but never report being cancelled themselves, so the grid
+        // is checked first. Starting it again also clears the boxes derived from the cancelled attempt.
+        var grid = this.voxelizeGrid();
         if (this.simplifiedVoxelsFuture == null) {
-            this.voxelize();
+            this.simplifiedVoxelsFuture = grid.thenApply(IVoxelGrid::toMergedBoxes);
         }
+        return this.simplifiedVoxelsFuture;
+    }
+
+    /**
+     * Checks if this voxelizer can produce a grid at the given resolution, see {@link #voxelizeGrid(int)}.
+     *
+     * @param blockResolution The resolution to check.
+     * @return True if the resolution divides the resolution of this voxelizer.
+     */
+    public boolean supportsResolution(int blockResolution) {
+        return blockResolution > 0 && this.blockResolution % blockResolution == 0;
+    }
 
-        return this.getSimplifiedVoxelsResultSafely();
+    /**
+     * Performs the voxelization process asynchronously, and reduces the result to a lower resolution.
+     * <p>
+     * The lower resolution grid is derived from the full grid with {@link IVoxelGrid#downsample(int)} rather than by
+     * voxelizing the mesh again, so it's a hull of the full grid and never loses thin parts of the mesh.
+     *
+     * @param blockResolution The resolution of the grid, which must divide the resolution of this voxelizer.
+     * @return A future that will complete with the grid at the given resolution.
+     * @throws IllegalArgumentException If the resolution isn't supported, see {@link #supportsResolution(int)}.
+     */
+    public CompletableFuture<IVoxelGrid> voxelizeGrid(int blockResolution) {
+        if (!this.supportsResolution(blockResolution)) {
+            throw new IllegalArgumentException("Resolution %d does not divide voxelizer resolution %d".formatted(blockResolution, this.blockResolution));
+        }
+        if (blockResolution == this.blockResolution) {
+            return this.voxelizeGrid();
+        }
+        var grid = this.voxelizeGrid();
+        var factor = this.blockResolution / blockResolution;
+        return this.downsampledGrids.computeIfAbsent(blockResolution, r -> grid.thenApply(g -> g.downsample(factor)));
     }
 
     /**
-     * Performs the voxelization process asynchronously.
+     * Performs the voxelization process asynchronously, and transforms the result.
+     * <p>
+     * Only rotations and mirrors that map voxels exactly onto other voxels are supported, see {@link GridTransform}.
+     * The shape is only ever voxelized once, each transform is applied to the resulting grid and remembered, so every
+     * state sharing an orientation shares the same grid.
      *
-     * @return A future that will complete with a list of AABBs representing the voxels that were found to be occupied.
+     * @param transform The transform to apply to the grid.
+     * @return A future that will complete with the transformed grid.
      */
-    public CompletableFuture<List<AABB>> voxelize() {
-        if(this.simplifiedVoxelsFuture != null) {
-            ArchitectureLog.debug("Voxelization of mesh {} has already been started, returning existing future.", this.mesh.getName());
-            return this.simplifiedVoxelsFuture;
+    public CompletableFuture<IVoxelGrid> voxelizeGrid(@NotNull GridTransform transform) {
+        return this.voxelizeGrid(transform, this.blockResolution);
+    }
+
+    /**
+     * Performs the voxelization process asynchronously, reduces the result to a lower resolution and transforms it.
+     *
+     * @param transform       The transform to apply to the grid, with offsets in voxels at the given resolution.
+     * @param blockResolution The resolution of the grid, see {@link #voxelizeGrid(int)}.
+     * @return A future that will complete with the transformed grid.
+     */
+    public CompletableFuture<IVoxelGrid> voxelizeGrid(@NotNull GridTransform transform, int blockResolution) {
+        var grid = this.voxelizeGrid(blockResolution);
+        if (transform.equals(GridTransform.IDENTITY)) {
+            return grid;
+        }
+        return this.transformedGrids.computeIfAbsent(new TransformKey(blockResolution, transform), k -> grid.thenApply(transform::apply));
+    }
+
+    /**
+     * Finds the voxels the mesh fills entirely asynchronously, and transforms them.
+     * <p>
+     * The grid from {@link #voxelizeGrid()} also holds every voxel the surface of the mesh passes through, which may be
+     * mostly empty. This leaves those out, keeping only the voxels that can be trusted to be solid all the way through,
+     * which is what {@link FaceCoverage} needs to decide what a shape hides.
+     *
+     * @param transform The transform to apply to the grid, see {@link #voxelizeGrid(GridTransform)}.
+     * @return A future that will complete with the transformed grid of solid voxels.
+     */
+    public CompletableFuture<IVoxelGrid> voxelizeSolidGrid(@NotNull GridTransform transform) {
+        var grid = this.voxelizeGrid();
+        // Checking the voxels takes a query per voxel, so it's done on the scheduler even if the grid is already known.
+        // The scheduler is fetched now rather than once the grid is done, so a shutdown in between cancels the job
+        // instead of starting a new scheduler for it.
+        var scheduler = VoxelizationScheduler.get();
+        var solid = this.computeSolidGrid(GridTransform.IDENTITY,
+                () -> grid.thenCompose(g -> scheduler.submit(job -> this.removeSurfaceVoxels(job, g))));
+        if (transform.equals(GridTransform.IDENTITY)) {
+            return solid;
+        }
+        return this.computeSolidGrid(transform, () -> solid.thenApply(transform::apply));
+    }
+
+    private CompletableFuture<IVoxelGrid> computeSolidGrid(GridTransform transform, Supplier<CompletableFuture<IVoxelGrid>> factory) {
+        // Grids that failed or were cancelled are replaced, the grid they're found from may have been preloaded and never runs again.
+        return this.solidGrids.compute(transform,
+                (key, existing) -> existing == null || existing.isCompletedExceptionally() ? factory.get() : existing);
+    }
+
+    private IVoxelGrid removeSurfaceVoxels(VoxelizationScheduler.Job job, IVoxelGrid grid) {
+        job.checkCancelled();
+        var solid = grid.copy();
+        grid.forEachSet((x, y, z) -> {
+            if (this.doesBoxIntersect(grid.getBox(x, y, z))) {
+                solid.clear(x, y, z);
+            }
+        });
+        return solid;
+    }
+
+    /**
+     * Performs the voxelization process asynchronously, and transforms the resulting boxes.
+     * <p>
+     * Transforms that map voxels onto other voxels, which covers every orientation a shape can be placed in, are applied
+     * to the grid with {@link #voxelizeGrid(GridTransform)} before the boxes are merged, so the result is exact and shared
+     * between every caller using the same orientation. Any other transform is applied to each box instead.
+     *
+     * @param transform The transform to apply to the boxes.
+     * @return A future that will complete with a list of AABBs covering the voxels that were found to be occupied.
+     */
+    public CompletableFuture<List<AABB>> voxelize(@NotNull ITrans3 transform) {
+        return this.voxelize(transform, this.blockResolution);
+    }
+
+    /**
+     * Performs the voxelization process asynchronously at a lower resolution, and transforms the resulting boxes.
+     * <p>
+     * Behaves the same as {@link #voxelize(ITrans3)}, using the grid from {@link #voxelizeGrid(int)}. Coarser grids
+     * merge into far fewer boxes, which makes them cheaper to test against when the exact shape doesn't matter.
+     *
+     * @param transform       The transform to apply to the boxes.
+     * @param blockResolution The resolution of the grid, which must divide the resolution of this voxelizer.
+     * @return A future that will complete with a list of AABBs covering the voxels that were found to be occupied.
+     */
+    public CompletableFuture<List<AABB>> voxelize(@NotNull ITrans3 transform, int blockResolution) {
+        return this.voxelize(transform, blockResolution, BoxBudget.EXACT);
+    }
+
+    /**
+     * Performs the voxelization process asynchronously at a lower resolution, and approximates the result with fewer
+     * boxes before transforming them.
+     * <p>
+     * Behaves the same as {@link #voxelize(ITrans3, int)}, with the boxes produced by
+     * {@link IVoxelGrid#toSimplifiedBoxes(BoxBudget)} instead. The result covers every occupied voxel but may cover some
+     * empty ones too, so it suits collision rather than anything the player sees.
+     *
+     * @param transform       The transform to apply to the boxes.
+     * @param blockResolution The resolution of the grid, which must divide the resolution of this voxelizer.
+     * @param budget          The limits on the number of boxes and how many empty voxels they may cover.
+     * @return A future that will complete with a list of AABBs covering the voxels that were found to be occupied.
+     */
+    public CompletableFuture<List<AABB>> voxelize(@NotNull ITrans3 transform, int blockResolution, @NotNull BoxBudget budget) {
+        var gridTransform = GridTransform.of(transform, blockResolution);
+        // Transforms that can't be applied to the grid are applied to the untransformed boxes instead.
+        var appliedTransform = gridTransform == null ? GridTransform.IDENTITY : gridTransform;
+        CompletableFuture<List<AABB>> boxes;
+        if (!budget.isExact()) {
+            var grid = this.voxelizeGrid(appliedTransform, blockResolution);
+            boxes = this.simplifiedBoxes.computeIfAbsent(new SimplifiedKey(new TransformKey(blockResolution, appliedTransform), budget),
+                    k -> grid.thenApply(g -> g.toSimplifiedBoxes(budget)));
+        } else if (blockResolution == this.blockResolution && appliedTransform.equals(GridTransform.IDENTITY)) {
+            boxes = this.voxelize();
+        } else {
+            var grid = this.voxelizeGrid(appliedTransform, blockResolution);
+            boxes = this.transformedBoxes.computeIfAbsent(new TransformKey(blockResolution, appliedTransform), k -> grid.thenApply(IVoxelGrid::toMergedBoxes));
+        }
+        if (gridTransform == null) {
+            return boxes.thenApply(b -> b.stream().map(transform::transformAABB).toList());
+        }
+        return boxes;
+    }
+
+    /**
+     * Creates an empty grid covering the bounds of the mesh.
+     *
+     * @return The new grid.
+     */
+    public IVoxelGrid createGrid() {
+        return IVoxelGrid.create(
+                this.min,
+                this.max.x() - this.min.x() + 1,
+                this.max.y() - this.min.y() + 1,
+                this.max.z() - this.min.z() + 1,
+                this.blockResolution
+        );
+    }
+
+    /**
+     * Sets the key the result of this voxelizer is stored under in the default {@link VoxelCache}.
+     * <p>
+     * Must be called before voxelization is started to have any effect, see {@link VoxelCache#createKey}.
+     *
+     * @param cacheKey The key to use, or null to always compute the result.
+     * @return This voxelizer.
+     */
+    public Voxelizer setCacheKey(@Nullable String cacheKey) {
+        this.cacheKey = cacheKey;
+        return this;
+    }
+
+    @Nullable
+    public String getCacheKey() {
+        return this.cacheKey;
+    }
+
+    /**
+     * Supplies the result of this voxelizer ahead of time, eg from a {@link VoxelBundle}, so it's never computed.
+     * <p>
+     * Ignored if voxelization has already been started, or if the grid doesn't cover the same voxels this voxelizer would.
+     *
+     * @param grid The precomputed result.
+     * @return True if the grid will be used as the result, false otherwise.
+     */
+    public synchronized boolean preload(@NotNull IVoxelGrid grid) {
+        if (this.gridFuture != null || !grid.hasSameBounds(this.createGrid())) {
+            return false;
+        }
+        this.gridFuture = CompletableFuture.completedFuture(grid);
+        return true;
+    }
+
+    private IVoxelGrid loadOrComputeVoxels(VoxelizationScheduler.Job job) {
+        var cache = VoxelCache.getDefault();
+        if (cache == null || this.cacheKey == null) {
+            return this.computeVoxels(job);
         }
 
-        // Create a list of all the voxels that are intersected by the mesh, do this with a thread pool to speed up the process.
-        var futures = new ArrayList<Future<AABB>>(this.totalVoxels());
-        for (var x = this.min.x(); x <= this.max.x(); x++) {
-            for (var y = this.min.y(); y <= this.max.y(); y++) {
-                for (var z = this.min.z(); z <= this.max.z(); z++) {
-                    var box = this.getBoxForOffset(x, y, z);
-                    futures.add(POOL.submit(() -> this.isBoxValidVoxel(box) ? box : null));
+        var cached = cache.load(this.cacheKey);
+        // The key covers the inputs, but make sure the entry still lines up with our grid before trusting it.
+        if (cached != null && cached.hasSameBounds(this.createGrid())) {
+            ArchitectureLog.debug("Loaded voxels for mesh {} from cache", this.mesh.getName());
+            return cached;
+        }
+        var grid = this.computeVoxels(job);
+        cache.store(this.cacheKey, grid);
+        return grid;
+    }
+
+    /**
+     * Sets whether mirror symmetry in the mesh is used to skip evaluating part of the grid, disabled by default.
+     * <p>
+     * Must be called before voxelization is started to have any effect. The surface and fill tests aren't exactly mirror
+     * invariant, the fill rays all run along +X for one, so the result only matches evaluating every voxel for meshes
+     * and resolutions it has been checked against. {@link VoxelBundleGenerator} evaluates the grids it bundles this way,
+     * and the build checks each of them against evaluating every voxel.
+     *
+     * @param useSymmetry True to evaluate only one half, quarter or octant of symmetric meshes, false to evaluate every voxel.
+     * @return This voxelizer.
+     */
+    public Voxelizer setUseSymmetry(boolean useSymmetry) {
+        this.useSymmetry = useSymmetry;
+        return this;
+    }
+
+    private IVoxelGrid computeVoxels(VoxelizationScheduler.Job job) {
+        var region = new Region(
+                this.useSymmetry ? MeshSymmetry.detect(this.mesh, this.blockResolution) : MeshSymmetry.NONE,
+                this.createGrid()
+        );
+        var surface = this.markSurfaceVoxels(job, region);
+
+        // Every voxel the surface doesn't pass through is either entirely inside or outside the mesh, check each slice of the grid in parallel.
+        // Neighbouring slices share words in the grid, so each one is filled into its own grid and merged once they're done.
+        var slices = new ArrayList<Callable<IVoxelGrid>>();
+        if (this.fillMode == FillMode.SCANLINE) {
+            for (var y = 0; y < surface.sizeY(); y++) {
+                var slice = y;
+                if (region.contains(1, slice)) {
+                    slices.add(() -> this.fillScanlines(job, region, surface, slice));
+                }
+            }
+        } else {
+            for (var x = 0; x < surface.sizeX(); x++) {
+                var slice = x;
+                if (region.contains(0, slice)) {
+                    slices.add(() -> this.markInteriorVoxels(job, region, surface, slice));
+                }
+            }
+        }
+        var out = surface.copy();
+        job.getScheduler().invokeAll(slices).forEach(out::or);
+        return region.mirror(out);
+    }
+
+    /**
+     * Marks every voxel that intersects the surface of the mesh.
+     * <p>
+     * Rather than asking the mesh which polygons overlap each voxel, we walk the AABB tree once for the whole grid and then
+     * rasterize each polygon into the voxels its bounds cover, split into batches that run in parallel.
+     *
+     * @return A grid containing every voxel the surface passes through.
+     */
+    private IVoxelGrid markSurfaceVoxels(VoxelizationScheduler.Job job, Region region) {
+        var gridBounds = new AABB(
+                this.min.x() * this.resolution, this.min.y() * this.resolution, this.min.z() * this.resolution,
+                (this.max.x() + 1) * this.resolution, (this.max.y() + 1) * this.resolution, (this.max.z() + 1) * this.resolution
+        );
+        var candidates = new ArrayList<SurfaceCandidate>();
+        this.mesh.getAABBTree().queryGrid(gridBounds, this.resolution, (p, minX, minY, minZ, maxX, maxY, maxZ) ->
+                candidates.add(new SurfaceCandidate(p, minX, minY, minZ, maxX, maxY, maxZ)));
+
+        var scheduler = job.getScheduler();
+        var batchCount = scheduler.parallelism() * SURFACE_BATCHES_PER_THREAD;
+        var batchSize = Math.max(1, (candidates.size() + batchCount - 1) / batchCount);
+        var batches = new ArrayList<Callable<IVoxelGrid>>();
+        for (var start = 0; start < candidates.size(); start += batchSize) {
+            var batch = candidates.subList(start, Math.min(candidates.size(), start + batchSize));
+            batches.add(() -> {
+                job.checkCancelled();
+                var grid = this.createGrid();
+                batch.forEach(c -> this.rasterizePolygon(region, grid, c));
+                return grid;
+            });
+        }
+        var surface = this.createGrid();
+        scheduler.invokeAll(batches).forEach(surface::or);
+        return surface;
+    }
+
+    /**
+     * Marks every voxel in the given range that the polygon passes through.
+     * <p>
+     * Flat polygons lie in a single plane, so any voxel that plane doesn't pass through can be skipped before running the
+     * full separating axis test in {@link IPolygon#intersect(AABB)}. This only ever skips voxels that test would reject.
+     */
+    private void rasterizePolygon(Region region, IVoxelGrid grid, SurfaceCandidate candidate) {
+        var poly = candidate.poly();
+        var polyBox = poly.getAABB();
+        var normal = poly.getNormal();
+        double planeMin = Double.POSITIVE_INFINITY, planeMax = Double.NEGATIVE_INFINITY;
+        for (var i = 0; i < poly.getVertexCount(); i++) {
+            var distance = normal.dot(poly.getVertex(i).getPos());
+            planeMin = Math.min(planeMin, distance);
+            planeMax = Math.max(planeMax, distance);
+        }
+        var flat = planeMax - planeMin <= PLANE_TOLERANCE;
+        // The distance from the centre of a voxel to its furthest corner, measured along the normal.
+        var radius = this.resolution * 0.5D * (Math.abs(normal.x()) + Math.abs(normal.y()) + Math.abs(normal.z())) + PLANE_TOLERANCE;
+
+        var deflation = 1D / (this.blockResolution * 32);
+        for (var x = candidate.minX(); x <= candidate.maxX(); x++) {
+            for (var y = candidate.minY(); y <= candidate.maxY(); y++) {
+                for (var z = candidate.minZ(); z <= candidate.maxZ(); z++) {
+                    if (grid.get(x, y, z) || !region.contains(x, y, z)) {
+                        continue;
+                    }
+                    var box = grid.getBox(x, y, z);
+                    if (flat) {
+                        var center = normal.dot(
+                                (box.minX() + box.maxX()) * 0.5D,
+                                (box.minY() + box.maxY()) * 0.5D,
+                                (box.minZ() + box.maxZ()) * 0.5D
+                        );
+                        if (center - planeMax > radius || planeMin - center > radius) {
+                            continue;
+                        }
+                    }
+                    // Same test as doesBoxIntersect, just starting from the polygon rather than the voxel.
+                    if (polyBox.intersects(box.deflate(deflation)) && poly.intersect(box)) {
+                        grid.set(x, y, z);
+                    }
                 }
             }
         }
+    }
 
-        // The resulting future should be complete once all the voxels have been checked, so we can simplify the list.
-        this.simplifiedVoxelsFuture = CompletableFuture.supplyAsync(() -> futures.stream().map(f -> {
-            try {
-                return f.get();
-            } catch (Exception e) {
-                ArchitectureLog.error("Failed to voxelize mesh {}, throwing exception", this.mesh);
-                throw new RuntimeException("Failed to voxelize mesh " + this.mesh, e);
+    private IVoxelGrid markInteriorVoxels(VoxelizationScheduler.Job job, Region region, IVoxelGrid surface, int x) {
+        job.checkCancelled();
+        var interior = surface.emptyCopy();
+        for (var y = 0; y < surface.sizeY(); y++) {
+            for (var z = 0; z < surface.sizeZ(); z++) {
+                if (!surface.get(x, y, z) && region.contains(x, y, z) && this.isPointInsideMesh(surface.getBox(x, y, z).center())) {
+                    interior.set(x, y, z);
+                }
             }
-        }).filter(Objects::nonNull).toList());
+        }
+        return interior;
+    }
 
-        return this.simplifiedVoxelsFuture;
+    /**
+     * Fills the interior of every row of voxels along the X axis in the given Y slice of the grid.
+     * <p>
+     * A single ray is traced along each row, and every voxel the surface doesn't pass through is then classified with the
+     * same nearest surface rule as {@link #isPointInsideMesh(IVector3)}, using the sorted crossings of that one ray.
+     */
+    private IVoxelGrid fillScanlines(VoxelizationScheduler.Job job, Region region, IVoxelGrid surface, int y) {
+        job.checkCancelled();
+        var interior = surface.emptyCopy();
+        var crossings = new ArrayList<Crossing>();
+        var originX = (this.min.x() - 1) * this.resolution;
+        for (var z = 0; z < surface.sizeZ(); z++) {
+            if (!region.contains(2, z)) {
+                continue;
+            }
+            var rowCenter = surface.getBox(0, y, z).center();
+            var ray = new Ray(IVector3.ofImmutable(originX, rowCenter.y(), rowCenter.z()), IVector3.UNIT_X);
+            crossings.clear();
+            this.mesh.getAABBTree().forEachAlongRay(ray, Double.POSITIVE_INFINITY, p -> {
+                var t = ray.intersectDistance(p);
+                if (!Double.isNaN(t)) {
+                    crossings.add(new Crossing(originX + t, p));
+                }
+            });
+            if (crossings.isEmpty()) {
+                continue;
+            }
+            crossings.sort(Comparator.comparingDouble(Crossing::x));
+
+            var next = 0;
+            for (var x = 0; x < surface.sizeX(); x++) {
+                if (surface.get(x, y, z) || !region.contains(0, x)) {
+                    continue;
+                }
+                var point = surface.getBox(x, y, z).center();
+                while (next < crossings.size() && crossings.get(next).x() < point.x()) {
+                    next++;
+                }
+                if (this.isInsideRow(crossings, next, point)) {
+                    interior.set(x, y, z);
+                }
+            }
+        }
+        return interior;
+    }
+
+    /**
+     * Checks if the given point is inside the mesh using the sorted crossings of its row.
+     *
+     * @param crossings The crossings of the row, sorted along the X axis.
+     * @param next      The index of the first crossing at or beyond the point.
+     * @param point     The point to check.
+     * @return True if the nearest crossing, or any crossing equally near, faces the point.
+     */
+    private boolean isInsideRow(List<Crossing> crossings, int next, IVector3 point) {
+        var nearest = Double.POSITIVE_INFINITY;
+        if (next < crossings.size()) {
+            nearest = crossings.get(next).x() - point.x();
+        }
+        if (next > 0) {
+            nearest = Math.min(nearest, point.x() - crossings.get(next - 1).x());
+        }
+        var limit = nearest + HIT_TOLERANCE;
+        for (var i = next; i < crossings.size() && crossings.get(i).x() - point.x() <= limit; i++) {
+            if (crossings.get(i).poly().isFacing(point)) {
+                return true;
+            }
+        }
+        for (var i = next - 1; i >= 0 && point.x() - crossings.get(i).x() <= limit; i--) {
+            if (crossings.get(i).poly().isFacing(point)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public AABB getBoxForOffset(int x, int y, int z) {
@@ -131,10 +632,6 @@ public class Voxelizer {
         return new AABB(bX, bY, bZ, bX + this.resolution, bY + this.resolution, bZ + this.resolution);
     }
 
-    private int totalVoxels() {
-        return this.voxels.length * this.voxels[0].length * this.voxels[0][0].length;
-    }
-
     public boolean isBoxValidVoxel(AABB box) {
         return this.doesBoxIntersect(box) || this.isPointInsideMesh(box.center());
     }
@@ -146,8 +643,7 @@ public class Voxelizer {
      * @return True if the box intersects with the mesh, false otherwise.
      */
     public boolean doesBoxIntersect(AABB box) {
-        var out = this.mesh.searchStream(box.deflate(1D / (this.blockResolution * 32))).anyMatch(p -> p.intersect(box));
-        return out;
+        return this.mesh.anyIntersecting(box.deflate(1D / (this.blockResolution * 32)), p -> p.intersect(box));
     }
 
     /**
@@ -157,39 +653,32 @@ public class Voxelizer {
      * @return True if the point is inside the mesh, false otherwise.
      */
     private boolean isPointInsideMesh(IVector3 point) {
-        var meshBounds = this.mesh.getBounds();
-        var fromPoint = IVector3.ofImmutable(meshBounds.minX() - 1, point.y(), point.z());
-        var rayDirection = IVector3.ofImmutable(1, 0, 0);
-        var ray = new Ray(fromPoint, rayDirection);
-
-        List<ObjectDoubleImmutablePair<Ray.Hit>> hits = ray.intersect(this.mesh).map(h -> {
-            var hit = h.rounded();
-            return ObjectDoubleImmutablePair.of(hit, hit.distanceTo(point));
-        }).toList();
-
-        if (hits.isEmpty()) {
+        // The nearest surface along the X axis through the point tells us which side of the mesh we're on, so trace both ways.
+        var origin = point.asImmutable();
+        var forward = new Ray(origin, IVector3.UNIT_X);
+        var backward = new Ray(origin, IVector3.UNIT_NX);
+        var forwardHit = this.mesh.closestHit(forward, Double.POSITIVE_INFINITY);
+        var backwardHit = this.mesh.closestHit(backward, Double.POSITIVE_INFINITY);
+        if (forwardHit == null && backwardHit == null) {
             return false;
         }
-        // We have to collect all the closest points, so we can choose an option if there are multiple.
+
+        var nearest = Math.min(
+                forwardHit == null ? Double.POSITIVE_INFINITY : forwardHit.distanceTo(point),
+                backwardHit == null ? Double.POSITIVE_INFINITY : backwardHit.distanceTo(point)
+        );
+        // Multiple surfaces can be equally close where faces meet, so we check if any of them face the point.
         // This is a safeguard against any bad geometry that might be present in the mesh.
-        var closestHits = Lists.newArrayList(hits.get(0));
-        for (var i = 1; i < hits.size(); i++) {
-            var hitData = hits.get(i);
-            if (Double.compare(hitData.rightDouble(), closestHits.get(0).rightDouble()) < 0) {
-                closestHits.clear();
-                closestHits.add(hitData);
-            } else if (Double.compare(hitData.rightDouble(), closestHits.get(0).rightDouble()) == 0) {
-                closestHits.add(hitData);
-            }
-        }
+        return this.hasFacingHit(forward, point, nearest) || this.hasFacingHit(backward, point, nearest);
+    }
 
-        for (var closestHit : closestHits) {
-            if (closestHit.left().poly().isFacing(point)) {
-                return true;
-            }
-        }
+    private boolean hasFacingHit(Ray ray, IVector3 point, double distance) {
+        return this.mesh.getAABBTree().anyHit(ray, distance + HIT_TOLERANCE,
+                (p, r) -> p.isFacing(point) ? r.intersectDistance(p) : Double.NaN);
+    }
 
-        return false;
+    public FillMode fillMode() {
+        return this.fillMode;
     }
 
     public IMesh<?, ? extends IPolygonData<?>> mesh() {
@@ -211,4 +700,124 @@ public class Voxelizer {
     public IVector3i max() {
         return this.max;
     }
+
+    /**
+     * The strategy used to find the voxels inside the mesh that the surface of the mesh doesn't pass through.
+     */
+    public enum FillMode {
+        /**
+         * Traces rays in both directions along the X axis from the centre of each voxel, looking for the nearest surface.
+         */
+        PER_VOXEL,
+        /**
+         * Traces a single ray along each row of voxels on the X axis, and classifies every voxel in the row from its crossings.
+         * Produces the same result as {@link #PER_VOXEL} while only tracing one ray per row.
+         */
+        SCANLINE
+    }
+
+    /**
+     * Identifies a transformed grid by the resolution it was reduced to and the transform applied to it.
+     */
+    private record TransformKey(int blockResolution, GridTransform transform) {
+    }
+
+    /**
+     * Identifies a set of simplified boxes by the grid they were made from and the budget they were made with.
+     */
+    private record SimplifiedKey(TransformKey grid, BoxBudget budget) {
+    }
+
+    /**
+     * The part of the grid that has to be evaluated, given the planes the mesh is symmetric across.
+     * <p>
+     * On each symmetric axis only the voxels up to and including the plane are evaluated, along with any voxels whose
+     * mirror falls outside the grid, and the rest are mirrored from them afterwards.
+     */
+    private static final class Region {
+
+        private final MeshSymmetry symmetry;
+        // The offset of each voxel's mirror from the voxel itself, in local coordinates, see MeshSymmetry.
+        private final int[] mirrorOffsets = new int[3];
+        private final boolean[][] evaluated = new boolean[3][];
+
+        private Region(MeshSymmetry symmetry, IVoxelGrid grid) {
+            this.symmetry = symmetry;
+            var origin = new int[]{grid.origin().x(), grid.origin().y(), grid.origin().z()};
+            for (var axis = 0; axis < 3; axis++) {
+                var size = grid.size(axis);
+                this.evaluated[axis] = new boolean[size];
+                if (symmetry.isSymmetric(axis)) {
+                    this.mirrorOffsets[axis] = symmetry.plane(axis) - 1 - 2 * origin[axis];
+                }
+                for (var i = 0; i < size; i++) {
+                    var mirror = this.mirror(axis, i);
+                    this.evaluated[axis][i] = !symmetry.isSymmetric(axis) || i <= mirror || mirror < 0 || mirror >= size;
+                }
+            }
+        }
+
+        private int mirror(int axis, int i) {
+            return this.mirrorOffsets[axis] - i;
+        }
+
+        private boolean contains(int axis, int i) {
+            return this.evaluated[axis][i];
+        }
+
+        private boolean contains(int x, int y, int z) {
+            return this.evaluated[0][x] && this.evaluated[1][y] && this.evaluated[2][z];
+        }
+
+        /**
+         * Fills in the voxels outside the region by mirroring the voxels inside it.
+         */
+        private IVoxelGrid mirror(IVoxelGrid grid) {
+            if (!this.symmetry.isSymmetric()) {
+                return grid;
+            }
+            var out = grid.copy();
+            grid.forEachSet((x, y, z) -> {
+                // Every combination of the symmetric axes, the first being the voxel itself.
+                for (var axes = 1; axes < 8; axes++) {
+                    int mX = x, mY = y, mZ = z;
+                    if ((axes & 1) != 0) {
+                        if (!this.symmetry.isSymmetric(0)) continue;
+                        mX = this.mirror(0, x);
+                    }
+                    if ((axes & 2) != 0) {
+                        if (!this.symmetry.isSymmetric(1)) continue;
+                        mY = this.mirror(1, y);
+                    }
+                    if ((axes & 4) != 0) {
+                        if (!this.symmetry.isSymmetric(2)) continue;
+                        mZ = this.mirror(2, z);
+                    }
+                    if (mX >= 0 && mY >= 0 && mZ >= 0 && mX < grid.sizeX() && mY < grid.sizeY() && mZ < grid.sizeZ()) {
+                        out.set(mX, mY, mZ);
+                    }
+                }
+            });
+            return out;
+        }
+
+    }
+
+    /**
+     * A polygon found by the grid query along with the range of voxels its bounds cover.
+     */
+    private record SurfaceCandidate(IPolygon<?> poly, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+
+    }
+
+    /**
+     * A point at which a scanline crosses the surface of the mesh.
+     *
+     * @param x    The position of the crossing along the X axis.
+     * @param poly The polygon that was crossed.
+     */
+    private record Crossing(double x, IPolygon<?> poly) {
+
+    }
+
 }
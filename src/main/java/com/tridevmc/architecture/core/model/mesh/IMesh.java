@@ -5,9 +5,14 @@ import com.google.common.collect.ImmutableMap;
 import com.tridevmc.architecture.core.math.ITrans3;
 import com.tridevmc.architecture.core.physics.AABB;
 import com.tridevmc.architecture.core.physics.IAABBTree;
+import com.tridevmc.architecture.core.physics.Ray;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
@@ -86,7 +91,40 @@ public interface IMesh<I, D extends IPolygonData<D>> {
      */
     @NotNull
     default List<IPolygon<D>> search(@NotNull AABB box) {
-        return this.getAABBTree().search(box);
+        var out = new ArrayList<IPolygon<D>>();
+        this.getAABBTree().forEachIntersecting(box, out::add);
+        return out;
+    }
+
+    /**
+     * Passes every polygon in the mesh whose bounds intersect the given AABB to the given consumer.
+     *
+     * @param box      The AABB to test against.
+     * @param consumer The consumer to pass each polygon to.
+     */
+    default void forEachIntersecting(@NotNull AABB box, @NotNull Consumer<? super IPolygon<D>> consumer) {
+        this.getAABBTree().forEachIntersecting(box, consumer);
+    }
+
+    /**
+     * Checks if any polygon in the mesh whose bounds intersect the given AABB matches the given predicate.
+     *
+     * @param box       The AABB to test against.
+     * @param predicate The predicate to test each polygon with.
+     * @return True if any polygon matches the predicate, false otherwise.
+     */
+    default boolean anyIntersecting(@NotNull AABB box, @NotNull Predicate<? super IPolygon<D>> predicate) {
+        return this.getAABBTree().anyIntersecting(box, predicate);
+    }
+
+    /**
+     * Counts the polygons in the mesh whose bounds intersect the given AABB.
+     *
+     * @param box The AABB to test against.
+     * @return The number of polygons whose bounds intersect the given AABB.
+     */
+    default int countIntersecting(@NotNull AABB box) {
+        return this.getAABBTree().countIntersecting(box);
     }
 
     /**
@@ -100,6 +138,30 @@ public interface IMesh<I, D extends IPolygonData<D>> {
         return this.getAABBTree().searchStream(box);
     }
 
+    /**
+     * Finds the polygon in this mesh closest to the origin of the given ray that the ray hits.
+     *
+     * @param ray  The ray to trace.
+     * @param maxT The maximum distance along the ray to trace, in multiples of the ray direction.
+     * @return The closest hit, or null if the ray doesn't hit the mesh within the given distance.
+     */
+    @Nullable
+    default Ray.Hit closestHit(@NotNull Ray ray, double maxT) {
+        var hit = this.getAABBTree().closestHit(ray, maxT, (p, r) -> r.intersectDistance(p));
+        return hit == null ? null : new Ray.Hit(ray, ray.getPoint(hit.distance()), hit.element());
+    }
+
+    /**
+     * Checks if the given ray hits any polygon in this mesh within the given distance.
+     *
+     * @param ray  The ray to trace.
+     * @param maxT The maximum distance along the ray to trace, in multiples of the ray direction.
+     * @return True if the ray hits the mesh, false otherwise.
+     */
+    default boolean anyHit(@NotNull Ray ray, double maxT) {
+        return this.getAABBTree().anyHit(ray, maxT, (p, r) -> r.intersectDistance(p));
+    }
+
     /**
      * Gets the bounds of this mesh using the AABBTree.
      *
@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.tridevmc.architecture.core.math.ITrans3;
 import com.tridevmc.architecture.core.physics.AABBTree;
+import com.tridevmc.architecture.core.physics.DynamicAABBTree;
 import com.tridevmc.architecture.core.physics.IAABBTree;
 import org.jetbrains.annotations.NotNull;
 
@@ -12,13 +13,18 @@ import java.util.*;
 
 /**
  * Default implementation of {@link IMesh}.
+ * <p>
+ * The AABB tree of a mesh is built once, transformed copies of the mesh refit a copy of it rather than building their
+ * own, as a transform moves the polygons without changing which of them are close to each other.
  */
 public class Mesh<I, D extends IPolygonData<D>> implements IMesh<I, D> {
 
     private final String name;
     private final ImmutableMap<I, IPart<I, D>> parts;
     private final ImmutableList<IFace<D>> faces;
-    private final AABBTree<IPolygon<D>> aabbTree;
+    private final DynamicAABBTree<IPolygon<D>> aabbTree;
+    // The handle of each polygon in the tree, in the order the parts, faces and polygons of the mesh list them.
+    private final int[] handles;
 
     /**
      * Creates a new mesh with the given faces.
@@ -29,10 +35,36 @@ public class Mesh<I, D extends IPolygonData<D>> implements IMesh<I, D> {
         this.name = name;
         this.parts = parts;
         this.faces = faces;
-        this.aabbTree = new AABBTree<>(
-                this.getFaceStream().flatMap(IFace::getPolygonStream).toList(),
+        var polygons = getPolygons(parts);
+        this.aabbTree = new DynamicAABBTree<>(
+                new AABBTree<>(polygons, IPolygon::getAABB, AABBTree.BuildMode.SAH),
                 IPolygon::getAABB
         );
+        var indices = new IdentityHashMap<IPolygon<D>, Integer>(polygons.size());
+        for (var i = 0; i < polygons.size(); i++) {
+            indices.put(polygons.get(i), i);
+        }
+        this.handles = new int[polygons.size()];
+        this.aabbTree.forEachItem((polygon, handle) -> this.handles[indices.get(polygon)] = handle);
+    }
+
+    private Mesh(String name, ImmutableMap<I, IPart<I, D>> parts, ImmutableList<IFace<D>> faces,
+                 DynamicAABBTree<IPolygon<D>> aabbTree, int[] handles) {
+        this.name = name;
+        this.parts = parts;
+        this.faces = faces;
+        this.aabbTree = aabbTree;
+        this.handles = handles;
+    }
+
+    private static <I, D extends IPolygonData<D>> List<IPolygon<D>> getPolygons(ImmutableMap<I, IPart<I, D>> parts) {
+        var polygons = new ArrayList<IPolygon<D>>();
+        for (var part : parts.values()) {
+            for (var face : part.getFaces()) {
+                polygons.addAll(face.getPolygons());
+            }
+        }
+        return polygons;
     }
 
     @Override
@@ -58,11 +90,22 @@ public class Mesh<I, D extends IPolygonData<D>> implements IMesh<I, D> {
     @Override
     @NotNull
     public IMesh<I, D> transform(@NotNull ITrans3 trans, boolean transformUVs) {
-        var builder = new Builder<I, D>(name);
-        for (var p : this.getParts().values()) {
-            builder.addPart(p.transform(trans, transformUVs));
+        var parts = ImmutableMap.<I, IPart<I, D>>builderWithExpectedSize(this.parts.size());
+        var faces = ImmutableList.<IFace<D>>builderWithExpectedSize(this.faces.size());
+        for (var entry : this.parts.entrySet()) {
+            var part = entry.getValue().transform(trans, transformUVs);
+            parts.put(entry.getKey(), part);
+            faces.addAll(part.getFaces());
+        }
+        var transformedParts = parts.build();
+        // Parts, faces and polygons keep their order when transformed, so each polygon replaces its original in the tree.
+        var polygons = getPolygons(transformedParts);
+        var tree = this.aabbTree.copy();
+        for (var i = 0; i < polygons.size(); i++) {
+            tree.set(this.handles[i], polygons.get(i));
         }
-        return builder.build();
+        tree.refit();
+        return new Mesh<>(this.name, transformedParts, faces.build(), tree, this.handles);
     }
 
     @Override
@@ -162,18 +162,9 @@ public record Quad<D extends IPolygonData<D>>(@NotNull IFace<D> face,
             return true;
         }
 
-        // Check if any of the edges intersect the box, if so, we intersect.
-        for (var i = 0; i < 4; i++) {
-            var v1 = this.getVertex(i).getPos().asImmutable();
-            var v2 = this.getVertex((i + 1) % 4).getPos().asImmutable();
-            var ray = new Ray(v1, v2.sub(v1));
-            if (box.intersects(ray).findAny().isPresent()) {
-                return true;
-            }
-        }
-
         // We've exhausted all of our quick checks, so we move on to the SAT test.
-        // This is similar to what we do with Tris, but we add a few more axes to check against.
+        // This is similar to what we do with Tris, but we add a few more axes to check against. The axes below already
+        // cover the edges of the quad, so there's no need to test each edge against the box separately.
         var v0 = this.getVertex(0).getPos().asMutable();
         var v1 = this.getVertex(1).getPos().asMutable();
         var v2 = this.getVertex(2).getPos().asMutable();
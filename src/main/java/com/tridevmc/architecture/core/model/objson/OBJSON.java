@@ -1,6 +1,8 @@
 package com.tridevmc.architecture.core.model.objson;
 
 import com.tridevmc.architecture.core.math.ITrans3;
+import com.tridevmc.architecture.core.model.IVoxelGrid;
+import com.tridevmc.architecture.core.model.VoxelCache;
 import com.tridevmc.architecture.core.model.Voxelizer;
 import com.tridevmc.architecture.core.model.mesh.*;
 import com.tridevmc.architecture.core.physics.AABB;
@@ -8,13 +10,22 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import net.minecraft.resources.ResourceLocation;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
-public record OBJSON(OBJSONData data, IMesh<String, PolygonData> mesh, Voxelizer voxelizer) {
+public record OBJSON(String name, IMesh<String, PolygonData> mesh, Voxelizer voxelizer) {
+
+    public OBJSON(IMesh<String, PolygonData> mesh, int blockResolution) {
+        this(mesh.getName(), mesh, new Voxelizer(mesh, blockResolution));
+    }
 
     public OBJSON(OBJSONData data, IMesh<String, PolygonData> mesh, int blockResolution) {
-        this(data, mesh, new Voxelizer(mesh, blockResolution));
+        this(data.name(), mesh, new Voxelizer(mesh, blockResolution));
     }
 
     public OBJSON(OBJSONData data, IMesh<String, PolygonData> mesh) {
@@ -38,7 +49,27 @@ public record OBJSON(OBJSONData data, IMesh<String, PolygonData> mesh, Voxelizer
     }
 
     public static OBJSON fromResource(ResourceLocation location, ITrans3 trans, int blockResolution) {
-        return new OBJSON(OBJSONData.fromResource(location), trans, blockResolution);
+        // The binary form is generated during the build, the JSON is only parsed when running without it.
+        var binary = OBJSONBinary.readResource(location);
+        if (binary != null) {
+            var objson = new OBJSON(OBJSONBinary.read(binary).transform(trans, false), blockResolution);
+            objson.voxelizer().setCacheKey(VoxelCache.createKey(binary, trans, blockResolution));
+            return objson;
+        }
+        var bytes = OBJSONData.readResource(location);
+        var objson = new OBJSON(readMesh(bytes).transform(trans, false), blockResolution);
+        // Key the voxels on the file itself, so they can be reused from the cache until the model changes.
+        objson.voxelizer().setCacheKey(VoxelCache.createKey(bytes, trans, blockResolution));
+        return objson;
+    }
+
+    private static IMesh<String, PolygonData> readMesh(byte[] bytes) {
+        // Streamed straight into the mesh, the whole OBJSONData tree is several times the size of the file.
+        try (var reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+            return OBJSONReader.read(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private static IMesh<String, PolygonData> createMesh(OBJSONData data) {
@@ -50,7 +81,11 @@ public record OBJSON(OBJSONData data, IMesh<String, PolygonData> mesh, Voxelizer
             var part = new Part.Builder<String, PolygonData>().setId(partData.name());
             var faceMap = new Int2ObjectOpenHashMap<Face.Builder<PolygonData>>();
 
-            for (OBJSONData.TriangleData triData : partData.triangles()) {
+            // Parts with only one kind of polygon leave the other out entirely.
+            var triangles = partData.triangles() == null ? new OBJSONData.TriangleData[0] : partData.triangles();
+            var quads = partData.quads() == null ? new OBJSONData.QuadData[0] : partData.quads();
+
+            for (OBJSONData.TriangleData triData : triangles) {
                 // OBJSON doesn't currently support tinting, so we'll just use the default value of -1.
                 var tri = new Tri.Builder<PolygonData>();
                 var faceData = data.faces()[triData.face()];
@@ -66,7 +101,7 @@ public record OBJSON(OBJSONData data, IMesh<String, PolygonData> mesh, Voxelizer
                 ).build());
             }
 
-            for (OBJSONData.QuadData quadData : partData.quads()) {
+            for (OBJSONData.QuadData quadData : quads) {
                 var quad = new Quad.Builder<PolygonData>();
                 var faceData = data.faces()[quadData.face()];
                 var face = faceMap.computeIfAbsent(quadData.face(), i -> new Face.Builder<>());
@@ -91,10 +126,6 @@ public record OBJSON(OBJSONData data, IMesh<String, PolygonData> mesh, Voxelizer
         return builder.build();
     }
 
-    public String name() {
-        return this.data.name();
-    }
-
     public CompletableFuture<List<AABB>> voxelize() {
         return this.voxelizer.voxelize();
     }
@@ -103,4 +134,12 @@ public record OBJSON(OBJSONData data, IMesh<String, PolygonData> mesh, Voxelizer
         return this.voxelizer.voxelizeNow();
     }
 
+    public CompletableFuture<IVoxelGrid> voxelizeGrid() {
+        return this.voxelizer.voxelizeGrid();
+    }
+
+    public IVoxelGrid voxelizeGridNow() {
+        return this.voxelizer.voxelizeGridNow();
+    }
+
 }
@@ -0,0 +1,294 @@
+package com.tridevmc.architecture.core.model.objson;
+
+import com.google.common.collect.ImmutableList;
+import com.tridevmc.architecture.core.model.mesh.*;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A compact binary form of OBJSON, read straight into a mesh without going through {@link OBJSONData}.
+ * <p>
+ * Everything is little-endian, laid out as:
+ * <pre>
+ * header    magic "OBJB", int version, string name, int vertex count, int face count, int part count
+ * vertices  float x, y, z, u, v                                                       per vertex
+ * faces     byte direction or -1, float normal x, y, z, int first vertex, int vertex count  per face
+ * parts     string name, int tri count, int quad count, then the tris and then the quads, each as
+ *           int face, byte cull face, short texture, unsigned short vertex index per corner
+ * </pre>
+ * Strings are an unsigned short length followed by UTF-8. Vertices are stored once per face rather than once per
+ * polygon corner, and polygons index into the vertices of their face. Only what {@link OBJSON} builds its mesh from is
+ * kept, the per vertex normals and the bounds and boxes of the JSON are left out.
+ * <p>
+ * Binary models are generated from the JSON ones by {@link OBJSONBinaryConverter} during the build and sit next to them
+ * with the {@value #EXTENSION} extension, {@link OBJSON#fromResource} prefers them when they're present.
+ */
+public final class OBJSONBinary {
+
+    /**
+     * The extension binary models use in place of {@code .objson}.
+     */
+    public static final String EXTENSION = ".objsonb";
+
+    private static final int MAGIC = 'O' | 'B' << 8 | 'J' << 16 | 'B' << 24;
+    private static final int VERSION = 1;
+
+    private OBJSONBinary() {
+    }
+
+    /**
+     * Reads the binary form of the OBJSON model at the given resource location.
+     * <p>
+     * The model is mapped into memory when the file system it's on allows it, ie when it's a file on disk as in a
+     * development environment, including through the file systems FML opens mods with. Entries inside a mod jar are
+     * compressed and can't be mapped, so they're read into memory instead.
+     *
+     * @param location The resource location of the JSON model.
+     * @return The contents of the binary model, or null if there isn't one for the model.
+     * @throws UncheckedIOException If the binary model exists but could not be read.
+     */
+    @Nullable
+    public static ByteBuffer readResource(ResourceLocation location) {
+        var path = String.format("/data/%s/objson/%s", location.getNamespace(), getBinaryPath(location.getPath()));
+        var url = OBJSONBinary.class.getResource(path);
+        if (url == null) {
+            return null;
+        }
+        try {
+            var mapped = tryMap(url);
+            if (mapped != null) {
+                return mapped;
+            }
+            try (var in = url.openStream()) {
+                return ByteBuffer.wrap(in.readAllBytes());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read resource \"%s\"".formatted(path), e);
+        }
+    }
+
+    @Nullable
+    private static ByteBuffer tryMap(URL url) throws IOException {
+        Path path;
+        try {
+            // Mods aren't loaded from file URLs, FML uses its own schemes backed by a file system for each mod.
+            path = Path.of(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+            return null;
+        }
+        try {
+            return map(path);
+        } catch (UnsupportedOperationException e) {
+            // Entries in a jar can't be mapped.
+            return null;
+        }
+    }
+
+    /**
+     * Maps the binary model at the given path into memory.
+     *
+     * @param path The path of the binary model.
+     * @return A read-only buffer over the file, which stays valid after the file is closed.
+     * @throws IOException                   If the file could not be mapped.
+     * @throws UnsupportedOperationException If the file system the path is on doesn't support mapping files.
+     */
+    public static ByteBuffer map(@NotNull Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Gets the path of the binary model for the JSON model at the given path.
+     *
+     * @param path The path of the JSON model.
+     * @return The same path with the {@value #EXTENSION} extension.
+     */
+    public static String getBinaryPath(@NotNull String path) {
+        var base = path.endsWith(".objson") ? path.substring(0, path.length() - ".objson".length()) : path;
+        return base + EXTENSION;
+    }
+
+    /**
+     * Reads a mesh from a binary model, the position of the buffer is left untouched.
+     *
+     * @param buffer The contents of the binary model.
+     * @return The mesh, with the same parts, faces and polygons {@link OBJSON} builds from the JSON model.
+     * @throws IllegalArgumentException If the buffer doesn't contain a binary model of a supported version.
+     */
+    public static IMesh<String, PolygonData> read(@NotNull ByteBuffer buffer) {
+        var in = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary OBJSON model");
+        }
+        var version = in.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary OBJSON version %d, expected %d".formatted(version, VERSION));
+        }
+        var builder = new Mesh.Builder<String, PolygonData>(readString(in));
+        var vertexCount = in.getInt();
+        var faceCount = in.getInt();
+        var partCount = in.getInt();
+
+        var verticesStart = in.position();
+        var facesStart = verticesStart + vertexCount * 5 * Float.BYTES;
+        in.position(facesStart);
+        var faces = new BinaryFace[faceCount];
+        for (var i = 0; i < faceCount; i++) {
+            var direction = in.get();
+            faces[i] = new BinaryFace(direction < 0 ? null : FaceDirection.values()[direction], in.getFloat(), in.getFloat(), in.getFloat(), in.getInt(), in.getInt());
+        }
+
+        // Vertices are only created for faces that are actually used, and then shared by every polygon on the face.
+        var vertices = new IVertex[vertexCount];
+        for (var p = 0; p < partCount; p++) {
+            var part = new Part.Builder<String, PolygonData>().setId(readString(in));
+            var triCount = in.getInt();
+            var quadCount = in.getInt();
+            var faceMap = new Int2ObjectOpenHashMap<Face.Builder<PolygonData>>();
+            for (var i = 0; i < triCount + quadCount; i++) {
+                var faceIndex = in.getInt();
+                var cullFace = CullFace.values()[in.get() + 1];
+                var texture = in.getShort();
+                var face = faces[faceIndex];
+                var corners = new IVertex[i < triCount ? 3 : 4];
+                for (var c = 0; c < corners.length; c++) {
+                    var vertexIndex = face.firstVertex() + Short.toUnsignedInt(in.getShort());
+                    var vertex = vertices[vertexIndex];
+                    if (vertex == null) {
+                        var offset = verticesStart + vertexIndex * 5 * Float.BYTES;
+                        vertex = new Vertex(in.getFloat(offset), in.getFloat(offset + 4), in.getFloat(offset + 8),
+                                face.nX(), face.nY(), face.nZ(),
+                                in.getFloat(offset + 12), in.getFloat(offset + 16));
+                        vertices[vertexIndex] = vertex;
+                    }
+                    corners[c] = vertex;
+                }
+                // OBJSON doesn't currently support tinting, so we'll just use the default value of -1.
+                var data = new PolygonData(cullFace, face.direction(), texture, -1);
+                faceMap.computeIfAbsent(faceIndex, f -> new Face.Builder<>())
+                        .addPolygon(corners.length == 3 ? Tri.getProvider() : Quad.getProvider(), data, ImmutableList.copyOf(corners));
+            }
+            for (var face : faceMap.values()) {
+                part.addFace(face.build());
+            }
+            builder.addPart(part.build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes the binary form of the given model.
+     *
+     * @param data The model to write.
+     * @param out  The stream to write the model to, it's left open.
+     * @throws IOException              If the model could not be written.
+     * @throws IllegalArgumentException If the model doesn't fit in the binary format.
+     */
+    public static void write(@NotNull OBJSONData data, @NotNull OutputStream out) throws IOException {
+        var body = ByteBuffer.allocate(estimateSize(data)).order(ByteOrder.LITTLE_ENDIAN);
+        body.putInt(MAGIC);
+        body.putInt(VERSION);
+        writeString(body, data.name());
+        var vertexCount = 0;
+        for (var face : data.faces()) {
+            vertexCount += face.vertices().length;
+        }
+        body.putInt(vertexCount);
+        body.putInt(data.faces().length);
+        body.putInt(data.parts().length);
+
+        for (var face : data.faces()) {
+            for (var vertex : face.vertices()) {
+                body.putFloat((float) vertex.pos()[0]).putFloat((float) vertex.pos()[1]).putFloat((float) vertex.pos()[2]);
+                body.putFloat((float) vertex.uv()[0]).putFloat((float) vertex.uv()[1]);
+            }
+        }
+        var firstVertex = 0;
+        for (var face : data.faces()) {
+            if (face.vertices().length > 0xFFFF + 1) {
+                throw new IllegalArgumentException("Face has %d vertices, at most %d are supported".formatted(face.vertices().length, 0xFFFF + 1));
+            }
+            // Some models leave the direction out, it's kept as missing rather than guessed.
+            body.put((byte) (face.face() == null ? -1 : face.face().ordinal()));
+            body.putFloat((float) face.normal()[0]).putFloat((float) face.normal()[1]).putFloat((float) face.normal()[2]);
+            body.putInt(firstVertex);
+            body.putInt(face.vertices().length);
+            firstVertex += face.vertices().length;
+        }
+        for (var part : data.parts()) {
+            writeString(body, part.name());
+            var tris = part.triangles() == null ? new OBJSONData.TriangleData[0] : part.triangles();
+            var quads = part.quads() == null ? new OBJSONData.QuadData[0] : part.quads();
+            body.putInt(tris.length);
+            body.putInt(quads.length);
+            for (var tri : tris) {
+                writePolygon(body, tri.face(), tri.cullFace(), tri.texture(), tri.vertices());
+            }
+            for (var quad : quads) {
+                writePolygon(body, quad.face(), quad.cullFace(), quad.texture(), quad.vertices());
+            }
+        }
+        out.write(body.array(), 0, body.position());
+    }
+
+    private static void writePolygon(ByteBuffer body, int face, CullFace cullFace, int texture, int[] vertices) {
+        if (texture < Short.MIN_VALUE || texture > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Texture index %d is out of range".formatted(texture));
+        }
+        body.putInt(face);
+        body.put((byte) (cullFace == null ? CullFace.NONE : cullFace).getIndex());
+        body.putShort((short) texture);
+        for (var vertex : vertices) {
+            body.putShort((short) vertex);
+        }
+    }
+
+    private static int estimateSize(OBJSONData data) {
+        // Strings are counted generously, as every character could take up to three bytes.
+        long size = Integer.BYTES * 5 + Short.BYTES + data.name().length() * 3L;
+        for (var face : data.faces()) {
+            size += 1 + Float.BYTES * 3 + Integer.BYTES * 2 + (long) face.vertices().length * 5 * Float.BYTES;
+        }
+        for (var part : data.parts()) {
+            size += Short.BYTES + part.name().length() * 3L + Integer.BYTES * 2;
+            size += (part.triangles() == null ? 0 : part.triangles().length) * (7L + 3 * Short.BYTES);
+            size += (part.quads() == null ? 0 : part.quads().length) * (7L + 4 * Short.BYTES);
+        }
+        return Math.toIntExact(size);
+    }
+
+    private static String readString(ByteBuffer in) {
+        var bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(ByteBuffer out, String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String is too long to write: " + value);
+        }
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private record BinaryFace(FaceDirection direction, float nX, float nY, float nZ, int firstVertex, int vertexCount) {
+    }
+
+}
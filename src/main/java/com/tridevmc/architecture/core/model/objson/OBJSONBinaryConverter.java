@@ -0,0 +1,64 @@
+package com.tridevmc.architecture.core.model.objson;
+
+import com.tridevmc.architecture.core.ArchitectureLog;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Converts the OBJSON models shipped with the mod to {@link OBJSONBinary}, run by the {@code convertOBJSON} task in the
+ * build.
+ * <p>
+ * Every model under {@code data/<namespace>/objson} is converted to a file at the same path in the output directory,
+ * with the {@value OBJSONBinary#EXTENSION} extension. Models that can't be parsed as current OBJSON, ie legacy models, are
+ * skipped.
+ */
+public final class OBJSONBinaryConverter {
+
+    private OBJSONBinaryConverter() {
+    }
+
+    /**
+     * Converts the models.
+     *
+     * @param args The resources directory to search for models and the directory to write the binary models to.
+     * @throws IOException If a model couldn't be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: OBJSONBinaryConverter <resources directory> <output directory>");
+        }
+        var resources = Path.of(args[0]);
+        var output = Path.of(args[1]);
+        var converted = 0;
+        long jsonSize = 0;
+        long binarySize = 0;
+        try (Stream<Path> models = Files.walk(resources.resolve("data"))) {
+            for (var model : models.filter(p -> p.toString().endsWith(".objson")).sorted().toList()) {
+                var relative = resources.relativize(model);
+                var target = output.resolve(relative).resolveSibling(OBJSONBinary.getBinaryPath(model.getFileName().toString()));
+                var bytes = Files.readAllBytes(model);
+                OBJSONData data;
+                try {
+                    data = OBJSONData.fromBytes(bytes);
+                } catch (RuntimeException e) {
+                    // Models in the legacy format are only read by the legacy loader, which has no binary form.
+                    ArchitectureLog.debug("Skipping {}, it isn't a current OBJSON model: {}", relative, e.toString());
+                    continue;
+                }
+                Files.createDirectories(target.toAbsolutePath().getParent());
+                try (var out = new BufferedOutputStream(Files.newOutputStream(target))) {
+                    OBJSONBinary.write(data, out);
+                }
+                converted++;
+                jsonSize += bytes.length;
+                binarySize += Files.size(target);
+            }
+        }
+        ArchitectureLog.info("Converted {} OBJSON models from {} to {} bytes", converted, jsonSize, binarySize);
+    }
+
+}
@@ -6,7 +6,11 @@ import com.tridevmc.architecture.core.model.mesh.CullFace;
 import com.tridevmc.architecture.core.model.mesh.FaceDirection;
 import net.minecraft.resources.ResourceLocation;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 /**
@@ -24,9 +28,34 @@ public record OBJSONData(String name, double[] bounds, FaceData[] faces, PartDat
      * @throws NullPointerException If no input stream could be found for the given resource location.
      */
     public static OBJSONData fromResource(ResourceLocation location) {
+        return OBJSONData.fromBytes(OBJSONData.readResource(location));
+    }
+
+    /**
+     * Reads the raw bytes of an OBJSON model from the given resource location.
+     *
+     * @param location The resource location of the model.
+     * @return The contents of the model file.
+     * @throws NullPointerException If no input stream could be found for the given resource location.
+     * @throws UncheckedIOException If the model could not be read.
+     */
+    public static byte[] readResource(ResourceLocation location) {
         var path = String.format("/data/%s/objson/%s", location.getNamespace(), location.getPath());
-        var in = OBJSONData.class.getResourceAsStream(path);
-        return GSON.fromJson(new InputStreamReader(Objects.requireNonNull(in, "Failed to obtain input stream for resource \"%s\"".formatted(path))), OBJSONData.class);
+        try (var in = OBJSONData.class.getResourceAsStream(path)) {
+            return Objects.requireNonNull(in, "Failed to obtain input stream for resource \"%s\"".formatted(path)).readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read resource \"%s\"".formatted(path), e);
+        }
+    }
+
+    /**
+     * Loads an OBJSON model from the contents of a model file.
+     *
+     * @param bytes The contents of the model file.
+     * @return The loaded model.
+     */
+    public static OBJSONData fromBytes(byte[] bytes) {
+        return GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8), OBJSONData.class);
     }
 
     /**
@@ -0,0 +1,247 @@
+package com.tridevmc.architecture.core.model.objson;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.tridevmc.architecture.core.model.mesh.*;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+/**
+ * Reads an OBJSON model straight into a mesh in a single pass, without building an {@link OBJSONData} first.
+ * <p>
+ * The vertices of each face are kept as flat arrays of primitives until a polygon uses them, then created once and
+ * shared by every polygon on the face. Polygons are added to the mesh as they're read, so nothing is held for the whole
+ * model besides the face arrays and the mesh being built. The result is the same mesh {@link OBJSON} builds from an
+ * {@link OBJSONData}.
+ * <p>
+ * Faces must come before the parts that use them, which is how every exported model is laid out. Values the mesh
+ * doesn't use, such as bounds, boxes and per vertex normals, are skipped without being parsed.
+ */
+public final class OBJSONReader {
+
+    // Position and UV of each vertex, in the order faces list them.
+    private final DoubleArrayList vertexData = new DoubleArrayList();
+    private final DoubleArrayList faceNormals = new DoubleArrayList();
+    private final IntArrayList faceFirstVertex = new IntArrayList();
+    private final ArrayList<FaceDirection> faceDirections = new ArrayList<>();
+    private IVertex[] vertices;
+
+    private OBJSONReader() {
+    }
+
+    /**
+     * Reads a mesh from an OBJSON model.
+     *
+     * @param reader The contents of the model, it's left open.
+     * @return The mesh.
+     * @throws IOException        If the model could not be read.
+     * @throws JsonParseException If the model isn't valid OBJSON, or lists its parts before its faces.
+     */
+    public static IMesh<String, PolygonData> read(@NotNull Reader reader) throws IOException {
+        try {
+            return new OBJSONReader().readMesh(new JsonReader(reader));
+        } catch (IllegalStateException | NumberFormatException e) {
+            // JsonReader reports unexpected structure this way, Gson itself would have wrapped these too.
+            throw new JsonParseException(e.getMessage(), e);
+        }
+    }
+
+    private IMesh<String, PolygonData> readMesh(JsonReader in) throws IOException {
+        String name = null;
+        var parts = new ArrayList<IPart<String, PolygonData>>();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name" -> name = in.nextString();
+                case "faces" -> this.readFaces(in);
+                case "parts" -> {
+                    if (this.vertices == null) {
+                        throw new JsonParseException("OBJSON parts must come after the faces they use, at " + in.getPath());
+                    }
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        parts.add(this.readPart(in));
+                    }
+                    in.endArray();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        var builder = new Mesh.Builder<String, PolygonData>(name);
+        parts.forEach(builder::addPart);
+        return builder.build();
+    }
+
+    private void readFaces(JsonReader in) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            this.faceFirstVertex.add(this.vertexData.size() / 5);
+            FaceDirection direction = null;
+            double nX = 0, nY = 0, nZ = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "normal" -> {
+                        in.beginArray();
+                        nX = in.nextDouble();
+                        nY = in.nextDouble();
+                        nZ = in.nextDouble();
+                        in.endArray();
+                    }
+                    case "vertices" -> this.readVertices(in);
+                    case "face" -> direction = this.readFaceDirection(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            this.faceNormals.add(nX);
+            this.faceNormals.add(nY);
+            this.faceNormals.add(nZ);
+            this.faceDirections.add(direction);
+        }
+        in.endArray();
+        this.faceFirstVertex.add(this.vertexData.size() / 5);
+        this.vertices = new IVertex[this.vertexData.size() / 5];
+    }
+
+    private void readVertices(JsonReader in) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            double x = 0, y = 0, z = 0, u = 0, v = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "pos" -> {
+                        in.beginArray();
+                        x = in.nextDouble();
+                        y = in.nextDouble();
+                        z = in.nextDouble();
+                        in.endArray();
+                    }
+                    case "uv" -> {
+                        in.beginArray();
+                        u = in.nextDouble();
+                        v = in.nextDouble();
+                        in.endArray();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            this.vertexData.add(x);
+            this.vertexData.add(y);
+            this.vertexData.add(z);
+            this.vertexData.add(u);
+            this.vertexData.add(v);
+        }
+        in.endArray();
+    }
+
+    private FaceDirection readFaceDirection(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        var index = in.nextInt();
+        if (index < 0 || index >= FaceDirection.values().length) {
+            throw new JsonParseException("Invalid face direction %d at %s".formatted(index, in.getPath()));
+        }
+        return FaceDirection.values()[index];
+    }
+
+    private IPart<String, PolygonData> readPart(JsonReader in) throws IOException {
+        var part = new Part.Builder<String, PolygonData>();
+        var faceMap = new Int2ObjectOpenHashMap<Face.Builder<PolygonData>>();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name" -> part.setId(in.nextString());
+                case "triangles", "quads" -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        this.readPolygon(in, faceMap);
+                    }
+                    in.endArray();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        for (var face : faceMap.values()) {
+            part.addFace(face.build());
+        }
+        return part.build();
+    }
+
+    private void readPolygon(JsonReader in, Int2ObjectOpenHashMap<Face.Builder<PolygonData>> faceMap) throws IOException {
+        var faceIndex = -1;
+        var cullFace = CullFace.NONE;
+        var texture = 0;
+        var corners = new int[4];
+        var cornerCount = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "face" -> faceIndex = in.nextInt();
+                case "cull_face" -> cullFace = CullFace.values()[in.nextInt() + 1];
+                case "texture" -> texture = in.nextInt();
+                case "vertices" -> {
+                    // The face may not be known yet, so the indices are only resolved once the polygon is complete.
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        if (cornerCount == corners.length) {
+                            throw new JsonParseException("Polygons may have at most 4 vertices, at " + in.getPath());
+                        }
+                        corners[cornerCount++] = in.nextInt();
+                    }
+                    in.endArray();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (faceIndex < 0 || faceIndex >= this.faceDirections.size()) {
+            throw new JsonParseException("Polygon refers to missing face %d, at %s".formatted(faceIndex, in.getPath()));
+        }
+        if (cornerCount < 3) {
+            throw new JsonParseException("Polygons must have at least 3 vertices, at " + in.getPath());
+        }
+        var vertices = ImmutableList.<IVertex>builderWithExpectedSize(cornerCount);
+        for (var i = 0; i < cornerCount; i++) {
+            vertices.add(this.getVertex(faceIndex, corners[i]));
+        }
+        // OBJSON doesn't currently support tinting, so we'll just use the default value of -1.
+        var data = new PolygonData(cullFace, this.faceDirections.get(faceIndex), texture, -1);
+        faceMap.computeIfAbsent(faceIndex, f -> new Face.Builder<>())
+                .addPolygon(cornerCount == 3 ? Tri.getProvider() : Quad.getProvider(), data, vertices.build());
+    }
+
+    private IVertex getVertex(int face, int index) {
+        var first = this.faceFirstVertex.getInt(face);
+        if (index < 0 || first + index >= this.faceFirstVertex.getInt(face + 1)) {
+            throw new JsonParseException("Face %d has no vertex %d".formatted(face, index));
+        }
+        var vertex = this.vertices[first + index];
+        if (vertex == null) {
+            var offset = (first + index) * 5;
+            var normal = face * 3;
+            vertex = new Vertex(
+                    this.vertexData.getDouble(offset), this.vertexData.getDouble(offset + 1), this.vertexData.getDouble(offset + 2),
+                    this.faceNormals.getDouble(normal), this.faceNormals.getDouble(normal + 1), this.faceNormals.getDouble(normal + 2),
+                    this.vertexData.getDouble(offset + 3), this.vertexData.getDouble(offset + 4)
+            );
+            this.vertices[first + index] = vertex;
+        }
+        return vertex;
+    }
+
+}
@@ -20,6 +20,11 @@ public record AABB(@NotNull IVector3Immutable min, @NotNull IVector3Immutable ma
 
     public static final AABB BLOCK_FULL = new AABB(0, 0, 0, 1, 1, 1);
 
+    /**
+     * A box with no volume at the origin, used as the bounds of something that contains nothing.
+     */
+    public static final AABB EMPTY = new AABB(0, 0, 0, 0, 0, 0);
+
     public AABB {
         if (min.x() > max.x() || min.y() > max.y() || min.z() > max.z()) {
             throw new IllegalArgumentException(String.format("Invalid AABB, min point (%s) is greater than max point (%s)", min, max));
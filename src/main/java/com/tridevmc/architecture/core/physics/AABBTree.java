@@ -2,8 +2,10 @@ package com.tridevmc.architecture.core.physics;
 
 import com.google.common.collect.Lists;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -13,6 +15,14 @@ public class AABBTree<T> implements IAABBTree<T> {
     private Node theNode;
 
     public AABBTree(Collection<T> items, Function<T, AABB> boxGetter) {
+        this(items, boxGetter, BuildMode.INCREMENTAL);
+    }
+
+    public AABBTree(Collection<T> items, Function<T, AABB> boxGetter, BuildMode mode) {
+        if (mode == BuildMode.SAH) {
+            this.theNode = new SAHBuilder(items, boxGetter).build();
+            return;
+        }
         items.forEach(t -> {
             var box = boxGetter.apply(t);
             if (AABBTree.this.theNode == null) {
@@ -63,11 +73,158 @@ public class AABBTree<T> implements IAABBTree<T> {
                 .filter(Objects::nonNull);
     }
 
+    @Override
+    public void queryGrid(@NotNull AABB bounds, double cellSize, @NotNull GridVisitor<? super T> visitor) {
+        var query = new GridQuery<T>(bounds, cellSize, visitor);
+        if (this.theNode == null) {
+            return;
+        }
+        var queue = new ArrayDeque<Node>();
+        queue.push(this.theNode);
+        while (!queue.isEmpty()) {
+            var node = queue.pop();
+            var box = node.getValue();
+            if (!bounds.intersects(box)) {
+                continue;
+            }
+            if (node.hasChildren()) {
+                queue.push(node.getRight());
+                queue.push(node.getLeft());
+            } else {
+                query.visit(node.item, box.minX(), box.minY(), box.minZ(), box.maxX(), box.maxY(), box.maxZ());
+            }
+        }
+    }
+
+    @Override
+    public void forEachAlongRay(@NotNull Ray ray, double maxT, @NotNull Consumer<? super T> consumer) {
+        this.traceRay(ray, maxT, (item, r) -> {
+            consumer.accept(item);
+            return Double.NaN;
+        }, false);
+    }
+
+    @Override
+    @Nullable
+    public RayHit<T> closestHit(@NotNull Ray ray, double maxT, @NotNull RayTest<? super T> test) {
+        return this.traceRay(ray, maxT, test, false);
+    }
+
+    @Override
+    public boolean anyHit(@NotNull Ray ray, double maxT, @NotNull RayTest<? super T> test) {
+        return this.traceRay(ray, maxT, test, true) != null;
+    }
+
+    @Nullable
+    private RayHit<T> traceRay(Ray ray, double maxT, RayTest<? super T> test, boolean stopAtFirst) {
+        if (this.theNode == null) {
+            return null;
+        }
+        var invX = PhysicsHelper.inverseDirection(ray.direction().x());
+        var invY = PhysicsHelper.inverseDirection(ray.direction().y());
+        var invZ = PhysicsHelper.inverseDirection(ray.direction().z());
+        RayHit<T> best = null;
+        var bestT = maxT;
+        var queue = new ArrayDeque<Node>();
+        queue.push(this.theNode);
+        while (!queue.isEmpty()) {
+            var node = queue.pop();
+            if (this.rayEntry(node, ray, invX, invY, invZ, bestT) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            if (node.hasChildren()) {
+                // Visit the child the ray enters first before the other, so closer hits can prune the rest of the tree.
+                var leftEntry = this.rayEntry(node.getLeft(), ray, invX, invY, invZ, bestT);
+                var rightEntry = this.rayEntry(node.getRight(), ray, invX, invY, invZ, bestT);
+                if (leftEntry <= rightEntry) {
+                    queue.push(node.getRight());
+                    queue.push(node.getLeft());
+                } else {
+                    queue.push(node.getLeft());
+                    queue.push(node.getRight());
+                }
+            } else {
+                var t = test.intersect(node.item, ray);
+                if (t >= 0 && t <= bestT) {
+                    bestT = t;
+                    best = new RayHit<>(node.item, t);
+                    if (stopAtFirst) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private double rayEntry(Node node, Ray ray, double invX, double invY, double invZ, double maxT) {
+        var box = node.getValue();
+        var entry = PhysicsHelper.intersectRaySlab(
+                box.minX(), box.minY(), box.minZ(), box.maxX(), box.maxY(), box.maxZ(),
+                ray.origin().x(), ray.origin().y(), ray.origin().z(), invX, invY, invZ, maxT
+        );
+        return Double.isNaN(entry) ? Double.POSITIVE_INFINITY : entry;
+    }
+
     @NotNull
     public AABB getBounds() {
         return this.theNode.getValue();
     }
 
+    /**
+     * Walks the tree to calculate its depth, node count and SAH cost.
+     *
+     * @return the statistics of this tree.
+     */
+    @Override
+    @NotNull
+    public AABBTreeStats getStats() {
+        if (this.theNode == null) {
+            return AABBTreeStats.EMPTY;
+        }
+        var rootArea = AABBTreeStats.surfaceArea(this.theNode.getValue());
+        var nodes = new ArrayDeque<Node>();
+        var depths = new ArrayDeque<Integer>();
+        nodes.push(this.theNode);
+        depths.push(1);
+        int maxDepth = 0, nodeCount = 0, leafCount = 0;
+        double cost = 0;
+        while (!nodes.isEmpty()) {
+            var node = nodes.pop();
+            int depth = depths.pop();
+            var area = rootArea > 0 ? AABBTreeStats.surfaceArea(node.getValue()) / rootArea : 1D;
+            nodeCount++;
+            maxDepth = Math.max(maxDepth, depth);
+            if (node.hasChildren()) {
+                cost += area * AABBTreeStats.TRAVERSAL_COST;
+                nodes.push(node.getLeft());
+                depths.push(depth + 1);
+                nodes.push(node.getRight());
+                depths.push(depth + 1);
+            } else {
+                cost += area * AABBTreeStats.INTERSECTION_COST;
+                leafCount++;
+            }
+        }
+        return new AABBTreeStats(maxDepth, nodeCount, leafCount, cost);
+    }
+
+    /**
+     * The strategy used to build a tree from a collection of items.
+     */
+    public enum BuildMode {
+        /**
+         * Inserts items one at a time, descending into the child whose volume grows the least. Cheap to build but
+         * never rebalances, so the quality of the tree depends on the order of the items.
+         */
+        INCREMENTAL,
+        /**
+         * Splits the items top-down using the surface area heuristic, binning items by their centroids.
+         * Slower to build but produces far shallower trees with less overlap between siblings.
+         */
+        SAH
+    }
+
     public class Node {
 
         private Node left;
@@ -82,6 +239,12 @@ public class AABBTree<T> implements IAABBTree<T> {
             this.item = item;
         }
 
+        private Node(AABB value, Node left, Node right) {
+            this.left = left;
+            this.right = right;
+            this.value = value;
+        }
+
         public boolean hasChildren() {
             return this.getLeft() != null && this.getRight() != null;
         }
@@ -98,6 +261,10 @@ public class AABBTree<T> implements IAABBTree<T> {
             return this.right;
         }
 
+        public T getItem() {
+            return this.item;
+        }
+
         public List<Node> addNode(AABB box, T item) {
             AABB oldValue = this.getValue();
             this.value = this.value.union(box);
@@ -132,4 +299,197 @@ public class AABBTree<T> implements IAABBTree<T> {
 
     }
 
+    /**
+     * Builds a tree top-down by recursively splitting items with the surface area heuristic.
+     * <p>
+     * Items are binned along each axis by the centroid of their box, and the split between bins with the lowest
+     * expected query cost is chosen. Bounds are kept in flat arrays while building so the only AABBs allocated are
+     * the ones stored on the final nodes.
+     */
+    private class SAHBuilder {
+
+        private static final int BIN_COUNT = 16;
+
+        private final List<T> items;
+        private final double[] mins, maxs, centroids;
+        private final int[] indices;
+
+        // Scratch space reused for every split, the build is single threaded so there's no need to allocate per node.
+        private final int[] binCounts = new int[BIN_COUNT];
+        private final double[] binBounds = new double[BIN_COUNT * 6];
+        private final double[] rightAreas = new double[BIN_COUNT];
+        private final double[] centroidMin = new double[3];
+        private final double[] centroidExtent = new double[3];
+
+        private SAHBuilder(Collection<T> items, Function<T, AABB> boxGetter) {
+            this.items = new ArrayList<>(items);
+            var count = this.items.size();
+            this.mins = new double[count * 3];
+            this.maxs = new double[count * 3];
+            this.centroids = new double[count * 3];
+            this.indices = new int[count];
+            for (var i = 0; i < count; i++) {
+                var box = boxGetter.apply(this.items.get(i));
+                for (var axis = 0; axis < 3; axis++) {
+                    this.mins[i * 3 + axis] = box.min(axis);
+                    this.maxs[i * 3 + axis] = box.max(axis);
+                    this.centroids[i * 3 + axis] = (box.min(axis) + box.max(axis)) * 0.5D;
+                }
+                this.indices[i] = i;
+            }
+        }
+
+        private Node build() {
+            if (this.items.isEmpty()) {
+                return null;
+            }
+            return this.build(0, this.items.size());
+        }
+
+        private Node build(int start, int end) {
+            if (end - start == 1) {
+                var i = this.indices[start];
+                return new Node(new AABB(
+                        this.mins[i * 3], this.mins[i * 3 + 1], this.mins[i * 3 + 2],
+                        this.maxs[i * 3], this.maxs[i * 3 + 1], this.maxs[i * 3 + 2]
+                ), this.items.get(i));
+            }
+
+            var split = this.findSplit(start, end);
+            var left = this.build(start, split);
+            var right = this.build(split, end);
+            return new Node(left.getValue().union(right.getValue()), left, right);
+        }
+
+        /**
+         * Partitions the given range of indices and returns the index the right child starts at.
+         */
+        private int findSplit(int start, int end) {
+            double cMinX = Double.POSITIVE_INFINITY, cMinY = Double.POSITIVE_INFINITY, cMinZ = Double.POSITIVE_INFINITY;
+            double cMaxX = Double.NEGATIVE_INFINITY, cMaxY = Double.NEGATIVE_INFINITY, cMaxZ = Double.NEGATIVE_INFINITY;
+            for (var i = start; i < end; i++) {
+                var c = this.indices[i] * 3;
+                cMinX = Math.min(cMinX, this.centroids[c]);
+                cMinY = Math.min(cMinY, this.centroids[c + 1]);
+                cMinZ = Math.min(cMinZ, this.centroids[c + 2]);
+                cMaxX = Math.max(cMaxX, this.centroids[c]);
+                cMaxY = Math.max(cMaxY, this.centroids[c + 1]);
+                cMaxZ = Math.max(cMaxZ, this.centroids[c + 2]);
+            }
+            var cMin = this.centroidMin;
+            var cExtent = this.centroidExtent;
+            cMin[0] = cMinX;
+            cMin[1] = cMinY;
+            cMin[2] = cMinZ;
+            cExtent[0] = cMaxX - cMinX;
+            cExtent[1] = cMaxY - cMinY;
+            cExtent[2] = cMaxZ - cMinZ;
+
+            var bestCost = Double.POSITIVE_INFINITY;
+            var bestAxis = -1;
+            var bestBin = -1;
+            for (var axis = 0; axis < 3; axis++) {
+                if (cExtent[axis] <= 0) {
+                    continue;
+                }
+                this.fillBins(start, end, axis, cMin[axis], cExtent[axis]);
+
+                // Sweep from the right to get the area and count of every right hand side, then from the left to evaluate each split.
+                double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+                for (var bin = BIN_COUNT - 1; bin > 0; bin--) {
+                    if (this.binCounts[bin] > 0) {
+                        var b = bin * 6;
+                        minX = Math.min(minX, this.binBounds[b]);
+                        minY = Math.min(minY, this.binBounds[b + 1]);
+                        minZ = Math.min(minZ, this.binBounds[b + 2]);
+                        maxX = Math.max(maxX, this.binBounds[b + 3]);
+                        maxY = Math.max(maxY, this.binBounds[b + 4]);
+                        maxZ = Math.max(maxZ, this.binBounds[b + 5]);
+                    }
+                    this.rightAreas[bin] = minX > maxX ? 0 : AABBTreeStats.surfaceArea(maxX - minX, maxY - minY, maxZ - minZ);
+                }
+
+                minX = minY = minZ = Double.POSITIVE_INFINITY;
+                maxX = maxY = maxZ = Double.NEGATIVE_INFINITY;
+                var leftCount = 0;
+                for (var bin = 0; bin < BIN_COUNT - 1; bin++) {
+                    if (this.binCounts[bin] > 0) {
+                        var b = bin * 6;
+                        minX = Math.min(minX, this.binBounds[b]);
+                        minY = Math.min(minY, this.binBounds[b + 1]);
+                        minZ = Math.min(minZ, this.binBounds[b + 2]);
+                        maxX = Math.max(maxX, this.binBounds[b + 3]);
+                        maxY = Math.max(maxY, this.binBounds[b + 4]);
+                        maxZ = Math.max(maxZ, this.binBounds[b + 5]);
+                    }
+                    leftCount += this.binCounts[bin];
+                    var rightCount = (end - start) - leftCount;
+                    if (leftCount == 0 || rightCount == 0) {
+                        continue;
+                    }
+                    var leftArea = AABBTreeStats.surfaceArea(maxX - minX, maxY - minY, maxZ - minZ);
+                    var cost = leftArea * leftCount + this.rightAreas[bin + 1] * rightCount;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = bin;
+                    }
+                }
+            }
+
+            if (bestAxis == -1) {
+                // Every centroid is in the same place, there's nothing to gain from a smart split so just halve the range.
+                return (start + end) >>> 1;
+            }
+
+            // Partition the range in place so that every item in a bin up to and including the best bin comes first.
+            var axis = bestAxis;
+            var scale = BIN_COUNT / cExtent[axis];
+            var lo = start;
+            var hi = end - 1;
+            while (lo <= hi) {
+                if (this.binFor(this.indices[lo], axis, cMin[axis], scale) <= bestBin) {
+                    lo++;
+                } else {
+                    var tmp = this.indices[lo];
+                    this.indices[lo] = this.indices[hi];
+                    this.indices[hi] = tmp;
+                    hi--;
+                }
+            }
+            return lo;
+        }
+
+        private void fillBins(int start, int end, int axis, double cMin, double cExtent) {
+            Arrays.fill(this.binCounts, 0);
+            for (var bin = 0; bin < BIN_COUNT; bin++) {
+                var b = bin * 6;
+                this.binBounds[b] = this.binBounds[b + 1] = this.binBounds[b + 2] = Double.POSITIVE_INFINITY;
+                this.binBounds[b + 3] = this.binBounds[b + 4] = this.binBounds[b + 5] = Double.NEGATIVE_INFINITY;
+            }
+
+            var scale = BIN_COUNT / cExtent;
+            for (var i = start; i < end; i++) {
+                var item = this.indices[i];
+                var bin = this.binFor(item, axis, cMin, scale);
+                this.binCounts[bin]++;
+                var b = bin * 6;
+                var o = item * 3;
+                this.binBounds[b] = Math.min(this.binBounds[b], this.mins[o]);
+                this.binBounds[b + 1] = Math.min(this.binBounds[b + 1], this.mins[o + 1]);
+                this.binBounds[b + 2] = Math.min(this.binBounds[b + 2], this.mins[o + 2]);
+                this.binBounds[b + 3] = Math.max(this.binBounds[b + 3], this.maxs[o]);
+                this.binBounds[b + 4] = Math.max(this.binBounds[b + 4], this.maxs[o + 1]);
+                this.binBounds[b + 5] = Math.max(this.binBounds[b + 5], this.maxs[o + 2]);
+            }
+        }
+
+        private int binFor(int item, int axis, double cMin, double scale) {
+            var bin = (int) ((this.centroids[item * 3 + axis] - cMin) * scale);
+            return Math.min(bin, BIN_COUNT - 1);
+        }
+
+    }
+
 }
@@ -0,0 +1,47 @@
+package com.tridevmc.architecture.core.physics;
+
+/**
+ * A record describing the shape of an AABB tree, used to compare the quality of trees produced by different builders.
+ * <p>
+ * The SAH cost is the expected cost of a random query against the tree, measured relative to the surface area of the root.
+ * Each internal node visited costs {@link #TRAVERSAL_COST} and each item tested costs {@link #INTERSECTION_COST}.
+ *
+ * @param depth     the depth of the deepest leaf in the tree, a tree with a single leaf has a depth of 1.
+ * @param nodeCount the total number of nodes in the tree, including leaves.
+ * @param leafCount the number of leaves in the tree.
+ * @param sahCost   the surface area heuristic cost of the tree.
+ */
+public record AABBTreeStats(int depth, int nodeCount, int leafCount, double sahCost) {
+
+    public static final double TRAVERSAL_COST = 1D;
+    public static final double INTERSECTION_COST = 1D;
+    public static final AABBTreeStats EMPTY = new AABBTreeStats(0, 0, 0, 0);
+
+    /**
+     * Calculates the surface area of the given box, used as the probability weight of a node being visited.
+     *
+     * @param box the box to measure.
+     * @return the surface area of the box.
+     */
+    public static double surfaceArea(AABB box) {
+        return surfaceArea(box.getXSize(), box.getYSize(), box.getZSize());
+    }
+
+    /**
+     * Calculates the surface area of a box with the given dimensions.
+     *
+     * @param xSize the size of the box along the X axis.
+     * @param ySize the size of the box along the Y axis.
+     * @param zSize the size of the box along the Z axis.
+     * @return the surface area of the box.
+     */
+    public static double surfaceArea(double xSize, double ySize, double zSize) {
+        return 2D * (xSize * ySize + ySize * zSize + zSize * xSize);
+    }
+
+    @Override
+    public String toString() {
+        return "depth=%d, nodes=%d, leaves=%d, sah=%.3f".formatted(this.depth, this.nodeCount, this.leafCount, this.sahCost);
+    }
+
+}
@@ -0,0 +1,889 @@
+package com.tridevmc.architecture.core.physics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A mutable AABB tree that supports inserting, removing and moving items without rebuilding the whole tree.
+ * <p>
+ * Nodes are stored in a pool of flat arrays and referenced by index. Inserting an item returns the index of its leaf,
+ * which stays valid as a handle until the item is removed, regardless of how the tree is restructured around it.
+ * <p>
+ * New leaves are placed next to the sibling that minimises the growth in surface area of the tree, and every node on the
+ * path back up to the root is rebalanced with a tree rotation if one of its subtrees has become too tall. For edits that
+ * move items without changing which items are in the tree, such as transforming the vertices of a mesh, {@link #refit()}
+ * recomputes the bounds of every node while leaving the structure of the tree alone.
+ * <p>
+ * Like the other trees, this is not safe to modify while another thread is reading from it.
+ *
+ * @param <T> The type of data stored in the tree.
+ */
+public class DynamicAABBTree<T> implements IAABBTree<T> {
+
+    /**
+     * The index used to represent the absence of a node.
+     */
+    public static final int NULL_NODE = -1;
+
+    private static final int MIN_X = 0, MIN_Y = 1, MIN_Z = 2, MAX_X = 3, MAX_Y = 4, MAX_Z = 5;
+
+    private final Function<T, AABB> boxGetter;
+
+    private double[] bounds;
+    private int[] parents;
+    private int[] lefts;
+    private int[] rights;
+    private int[] heights;
+    private Object[] items;
+
+    private int root = NULL_NODE;
+    private int freeList = NULL_NODE;
+    private int capacity;
+    private int allocated;
+    private int leafCount;
+
+    /**
+     * Creates a new empty tree.
+     *
+     * @param boxGetter a function to get the bounds of each item, used by {@link #insert(Object)} and {@link #refit()}.
+     */
+    public DynamicAABBTree(Function<T, AABB> boxGetter) {
+        this.boxGetter = boxGetter;
+        this.allocate(16);
+    }
+
+    /**
+     * Creates a new tree containing the given items.
+     *
+     * @param items     the items to insert into the tree.
+     * @param boxGetter a function to get the bounds of each item, used by {@link #insert(Object)} and {@link #refit()}.
+     */
+    public DynamicAABBTree(Collection<T> items, Function<T, AABB> boxGetter) {
+        this.boxGetter = boxGetter;
+        this.allocate(Math.max(16, items.size() * 2));
+        items.forEach(this::insert);
+    }
+
+    /**
+     * Creates a new tree with the same structure as the given tree, eg one built with {@link AABBTree.BuildMode#SAH}.
+     * <p>
+     * Building a tree one insertion at a time produces a noticeably worse tree than building it from every item at once,
+     * so trees that start out with a known set of items should be built this way and then edited.
+     *
+     * @param tree      the tree to copy the structure and items of.
+     * @param boxGetter a function to get the bounds of each item, used by {@link #insert(Object)} and {@link #refit()}.
+     */
+    public DynamicAABBTree(AABBTree<T> tree, Function<T, AABB> boxGetter) {
+        this.boxGetter = boxGetter;
+        var stats = tree.getStats();
+        this.allocate(Math.max(16, stats.nodeCount()));
+        if (tree.getRoot() != null) {
+            this.root = this.copyNode(tree.getRoot(), NULL_NODE);
+            this.leafCount = stats.leafCount();
+        }
+    }
+
+    private DynamicAABBTree(DynamicAABBTree<T> other) {
+        this.boxGetter = other.boxGetter;
+        this.capacity = other.capacity;
+        this.bounds = other.bounds.clone();
+        this.parents = other.parents.clone();
+        this.lefts = other.lefts.clone();
+        this.rights = other.rights.clone();
+        this.heights = other.heights.clone();
+        this.items = other.items.clone();
+        this.root = other.root;
+        this.freeList = other.freeList;
+        this.allocated = other.allocated;
+        this.leafCount = other.leafCount;
+    }
+
+    private int copyNode(AABBTree<T>.Node node, int parent) {
+        var index = this.allocateNode();
+        this.parents[index] = parent;
+        this.setBounds(index, node.getValue());
+        if (node.hasChildren()) {
+            var left = this.copyNode(node.getLeft(), index);
+            var right = this.copyNode(node.getRight(), index);
+            this.lefts[index] = left;
+            this.rights[index] = right;
+            this.heights[index] = 1 + Math.max(this.heights[left], this.heights[right]);
+        } else {
+            this.items[index] = node.getItem();
+            this.heights[index] = 0;
+        }
+        return index;
+    }
+
+    /**
+     * Creates a copy of this tree, every item keeps the same handle in the copy.
+     * <p>
+     * Combined with {@link #set(int, Object)} and {@link #refit()} this derives the tree for a transformed copy of a set
+     * of items without rebuilding it, as done for {@link com.tridevmc.architecture.core.model.mesh.Mesh#transform}.
+     *
+     * @return the copy.
+     */
+    public DynamicAABBTree<T> copy() {
+        return new DynamicAABBTree<>(this);
+    }
+
+    /**
+     * Inserts the given item into the tree, using the box getter of this tree to get its bounds.
+     *
+     * @param item the item to insert.
+     * @return the handle of the item, used to update or remove it later.
+     */
+    public int insert(T item) {
+        return this.insert(this.boxGetter.apply(item), item);
+    }
+
+    /**
+     * Inserts the given item into the tree with the given bounds.
+     *
+     * @param box  the bounds of the item.
+     * @param item the item to insert.
+     * @return the handle of the item, used to update or remove it later.
+     */
+    public int insert(AABB box, T item) {
+        var leaf = this.allocateNode();
+        this.setBounds(leaf, box);
+        this.items[leaf] = item;
+        this.heights[leaf] = 0;
+        this.insertLeaf(leaf);
+        this.leafCount++;
+        return leaf;
+    }
+
+    /**
+     * Removes the item with the given handle from the tree, after which the handle may be reused by another item.
+     *
+     * @param handle the handle of the item to remove.
+     */
+    public void remove(int handle) {
+        this.checkLeaf(handle);
+        this.removeLeaf(handle);
+        this.freeNode(handle);
+        this.leafCount--;
+    }
+
+    /**
+     * Moves the item with the given handle to the given bounds, reinserting it so it ends up next to its new neighbours.
+     *
+     * @param handle the handle of the item to move.
+     * @param box    the new bounds of the item.
+     */
+    public void update(int handle, AABB box) {
+        this.checkLeaf(handle);
+        var b = handle * 6;
+        if (this.bounds[b + MIN_X] == box.minX() && this.bounds[b + MIN_Y] == box.minY() && this.bounds[b + MIN_Z] == box.minZ()
+                && this.bounds[b + MAX_X] == box.maxX() && this.bounds[b + MAX_Y] == box.maxY() && this.bounds[b + MAX_Z] == box.maxZ()) {
+            return;
+        }
+        this.removeLeaf(handle);
+        this.setBounds(handle, box);
+        this.insertLeaf(handle);
+    }
+
+    /**
+     * Gets the item with the given handle.
+     *
+     * @param handle the handle of the item.
+     * @return the item stored at the given handle.
+     */
+    public T get(int handle) {
+        this.checkLeaf(handle);
+        return this.item(handle);
+    }
+
+    /**
+     * Replaces the item with the given handle without moving it, its bounds are only updated by the next {@link #refit()}.
+     *
+     * @param handle the handle of the item to replace.
+     * @param item   the new item.
+     */
+    public void set(int handle, T item) {
+        this.checkLeaf(handle);
+        this.items[handle] = item;
+    }
+
+    /**
+     * Visits every item in the tree along with its handle.
+     *
+     * @param consumer the consumer to pass each item and its handle to.
+     */
+    public void forEachItem(ObjIntConsumer<? super T> consumer) {
+        for (var node = 0; node < this.allocated; node++) {
+            if (this.heights[node] == 0 && this.isLeaf(node)) {
+                consumer.accept(this.item(node), node);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the bounds of every node in the tree without changing its structure.
+     * <p>
+     * The bounds of each leaf are fetched again with the box getter of this tree, so this should be called after the
+     * items themselves have moved. Far cheaper than rebuilding the tree, but the quality of the tree will degrade if the
+     * items move a long way relative to each other.
+     */
+    public void refit() {
+        if (this.root == NULL_NODE) {
+            return;
+        }
+        // Walk the tree depth first, recording nodes in the order they're visited. Every parent is visited before its
+        // children, so walking the order in reverse visits every child before its parent.
+        var order = new int[this.allocated];
+        var count = 0;
+        var stack = TraversalStack.get();
+        var mark = stack.mark();
+        try {
+            stack.push(this.root);
+            while (stack.hasAbove(mark)) {
+                var node = stack.pop();
+                order[count++] = node;
+                if (!this.isLeaf(node)) {
+                    stack.push(this.lefts[node]);
+                    stack.push(this.rights[node]);
+                }
+            }
+        } finally {
+            stack.reset(mark);
+        }
+        for (var i = count - 1; i >= 0; i--) {
+            var node = order[i];
+            if (this.isLeaf(node)) {
+                this.setBounds(node, this.boxGetter.apply(this.item(node)));
+            } else {
+                this.setUnion(node, this.lefts[node], this.rights[node]);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of items stored in the tree.
+     *
+     * @return the number of items in the tree.
+     */
+    public int size() {
+        return this.leafCount;
+    }
+
+    /**
+     * Checks if the tree has no items.
+     *
+     * @return true if the tree is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return this.root == NULL_NODE;
+    }
+
+    @Override
+    @NotNull
+    public Stream<T> searchStream(@NotNull AABB box) {
+        if (this.root == NULL_NODE) {
+            return Stream.empty();
+        }
+        return StreamSupport.stream(new SearchSpliterator(box), false);
+    }
+
+    @Override
+    public void forEachIntersecting(@NotNull AABB box, @NotNull Consumer<? super T> consumer) {
+        if (this.root == NULL_NODE) {
+            return;
+        }
+        double minX = box.minX(), minY = box.minY(), minZ = box.minZ();
+        double maxX = box.maxX(), maxY = box.maxY(), maxZ = box.maxZ();
+        var stack = TraversalStack.get();
+        var mark = stack.mark();
+        try {
+            stack.push(this.root);
+            while (stack.hasAbove(mark)) {
+                var node = stack.pop();
+                if (!this.overlaps(node, minX, minY, minZ, maxX, maxY, maxZ)) {
+                    continue;
+                }
+                if (this.isLeaf(node)) {
+                    consumer.accept(this.item(node));
+                } else {
+                    stack.push(this.rights[node]);
+                    stack.push(this.lefts[node]);
+                }
+            }
+        } finally {
+            stack.reset(mark);
+        }
+    }
+
+    @Override
+    public boolean anyIntersecting(@NotNull AABB box, @NotNull Predicate<? super T> predicate) {
+        if (this.root == NULL_NODE) {
+            return false;
+        }
+        double minX = box.minX(), minY = box.minY(), minZ = box.minZ();
+        double maxX = box.maxX(), maxY = box.maxY(), maxZ = box.maxZ();
+        var stack = TraversalStack.get();
+        var mark = stack.mark();
+        try {
+            stack.push(this.root);
+            while (stack.hasAbove(mark)) {
+                var node = stack.pop();
+                if (!this.overlaps(node, minX, minY, minZ, maxX, maxY, maxZ)) {
+                    continue;
+                }
+                if (this.isLeaf(node)) {
+                    if (predicate.test(this.item(node))) {
+                        return true;
+                    }
+                } else {
+                    stack.push(this.rights[node]);
+                    stack.push(this.lefts[node]);
+                }
+            }
+            return false;
+        } finally {
+            stack.reset(mark);
+        }
+    }
+
+    @Override
+    public int countIntersecting(@NotNull AABB box) {
+        if (this.root == NULL_NODE) {
+            return 0;
+        }
+        double minX = box.minX(), minY = box.minY(), minZ = box.minZ();
+        double maxX = box.maxX(), maxY = box.maxY(), maxZ = box.maxZ();
+        var count = 0;
+        var stack = TraversalStack.get();
+        var mark = stack.mark();
+        try {
+            stack.push(this.root);
+            while (stack.hasAbove(mark)) {
+                var node = stack.pop();
+                if (!this.overlaps(node, minX, minY, minZ, maxX, maxY, maxZ)) {
+                    continue;
+                }
+                if (this.isLeaf(node)) {
+                    count++;
+                } else {
+                    stack.push(this.rights[node]);
+                    stack.push(this.lefts[node]);
+                }
+            }
+            return count;
+        } finally {
+            stack.reset(mark);
+        }
+    }
+
+    @Override
+    public void queryGrid(@NotNull AABB bounds, double cellSize, @NotNull GridVisitor<? super T> visitor) {
+        var query = new GridQuery<T>(bounds, cellSize, visitor);
+        if (this.root == NULL_NODE) {
+            return;
+        }
+        double minX = bounds.minX(), minY = bounds.minY(), minZ = bounds.minZ();
+        double maxX = bounds.maxX(), maxY = bounds.maxY(), maxZ = bounds.maxZ();
+        var stack = TraversalStack.get();
+        var mark = stack.mark();
+        try {
+            stack.push(this.root);
+            while (stack.hasAbove(mark)) {
+                var node = stack.pop();
+                if (!this.overlaps(node, minX, minY, minZ, maxX, maxY, maxZ)) {
+                    continue;
+                }
+                if (this.isLeaf(node)) {
+                    var b = node * 6;
+                    query.visit(this.item(node),
+                            this.bounds[b + MIN_X], this.bounds[b + MIN_Y], this.bounds[b + MIN_Z],
+                            this.bounds[b + MAX_X], this.bounds[b + MAX_Y], this.bounds[b + MAX_Z]);
+                } else {
+                    stack.push(this.rights[node]);
+                    stack.push(this.lefts[node]);
+                }
+            }
+        } finally {
+            stack.reset(mark);
+        }
+    }
+
+    @Override
+    public void forEachAlongRay(@NotNull Ray ray, double maxT, @NotNull Consumer<? super T> consumer) {
+        if (this.root == NULL_NODE) {
+            return;
+        }
+        double oX = ray.origin().x(), oY = ray.origin().y(), oZ = ray.origin().z();
+        var invX = PhysicsHelper.inverseDirection(ray.direction().x());
+        var invY = PhysicsHelper.inverseDirection(ray.direction().y());
+        var invZ = PhysicsHelper.inverseDirection(ray.direction().z());
+        var stack = TraversalStack.get();
+        var mark = stack.mark();
+        try {
+            if (!Double.isNaN(this.rayEntry(this.root, oX, oY, oZ, invX, invY, invZ, maxT))) {
+                stack.push(this.root);
+            }
+            while (stack.hasAbove(mark)) {
+                var node = stack.pop();
+                if (this.isLeaf(node)) {
+                    consumer.accept(this.item(node));
+                } else {
+                    this.pushChildren(stack, node, oX, oY, oZ, invX, invY, invZ, maxT);
+                }
+            }
+        } finally {
+            stack.reset(mark);
+        }
+    }
+
+    @Override
+    @Nullable
+    public RayHit<T> closestHit(@NotNull Ray ray, double maxT, @NotNull RayTest<? super T> test) {
+        return this.traceRay(ray, maxT, test, false);
+    }
+
+    @Override
+    public boolean anyHit(@NotNull Ray ray, double maxT, @NotNull RayTest<? super T> test) {
+        return this.traceRay(ray, maxT, test, true) != null;
+    }
+
+    /**
+     * Walks the tree front to back along the given ray, testing each element the ray passes through.
+     *
+     * @param stopAtFirst whether to return the first hit found rather than the closest.
+     */
+    @Nullable
+    private RayHit<T> traceRay(Ray ray, double maxT, RayTest<? super T> test, boolean stopAtFirst) {
+        if (this.root == NULL_NODE) {
+            return null;
+        }
+        double oX = ray.origin().x(), oY = ray.origin().y(), oZ = ray.origin().z();
+        var invX = PhysicsHelper.inverseDirection(ray.direction().x());
+        var invY = PhysicsHelper.inverseDirection(ray.direction().y());
+        var invZ = PhysicsHelper.inverseDirection(ray.direction().z());
+        var bestT = maxT;
+        var bestNode = NULL_NODE;
+        var stack = TraversalStack.get();
+        var mark = stack.mark();
+        try {
+            var rootEntry = this.rayEntry(this.root, oX, oY, oZ, invX, invY, invZ, bestT);
+            if (!Double.isNaN(rootEntry)) {
+                stack.push(this.root, rootEntry);
+            }
+            while (stack.hasAbove(mark)) {
+                // Skip anything we entered beyond the closest hit found since it was pushed.
+                if (stack.peekKey() > bestT) {
+                    stack.pop();
+                    continue;
+                }
+                var node = stack.pop();
+                if (this.isLeaf(node)) {
+                    var t = test.intersect(this.item(node), ray);
+                    if (t >= 0 && t <= bestT) {
+                        bestT = t;
+                        bestNode = node;
+                        if (stopAtFirst) {
+                            break;
+                        }
+                    }
+                } else {
+                    this.pushChildren(stack, node, oX, oY, oZ, invX, invY, invZ, bestT);
+                }
+            }
+        } finally {
+            stack.reset(mark);
+        }
+        return bestNode == NULL_NODE ? null : new RayHit<>(this.item(bestNode), bestT);
+    }
+
+    /**
+     * Pushes the children of the given node that the ray enters, the nearest child is pushed last so it's visited first.
+     */
+    private void pushChildren(TraversalStack stack, int node,
+                              double oX, double oY, double oZ, double invX, double invY, double invZ, double maxT) {
+        var left = this.lefts[node];
+        var right = this.rights[node];
+        var leftT = this.rayEntry(left, oX, oY, oZ, invX, invY, invZ, maxT);
+        var rightT = this.rayEntry(right, oX, oY, oZ, invX, invY, invZ, maxT);
+        if (Double.isNaN(leftT)) {
+            if (!Double.isNaN(rightT)) {
+                stack.push(right, rightT);
+            }
+        } else if (Double.isNaN(rightT)) {
+            stack.push(left, leftT);
+        } else if (leftT <= rightT) {
+            stack.push(right, rightT);
+            stack.push(left, leftT);
+        } else {
+            stack.push(left, leftT);
+            stack.push(right, rightT);
+        }
+    }
+
+    private double rayEntry(int node, double oX, double oY, double oZ, double invX, double invY, double invZ, double maxT) {
+        var b = node * 6;
+        return PhysicsHelper.intersectRaySlab(
+                this.bounds[b + MIN_X], this.bounds[b + MIN_Y], this.bounds[b + MIN_Z],
+                this.bounds[b + MAX_X], this.bounds[b + MAX_Y], this.bounds[b + MAX_Z],
+                oX, oY, oZ, invX, invY, invZ, maxT
+        );
+    }
+
+    @Override
+    @NotNull
+    public AABB getBounds() {
+        if (this.root == NULL_NODE) {
+            return AABB.EMPTY;
+        }
+        var b = this.root * 6;
+        return new AABB(
+                this.bounds[b + MIN_X], this.bounds[b + MIN_Y], this.bounds[b + MIN_Z],
+                this.bounds[b + MAX_X], this.bounds[b + MAX_Y], this.bounds[b + MAX_Z]
+        );
+    }
+
+    @Override
+    @NotNull
+    public AABBTreeStats getStats() {
+        if (this.root == NULL_NODE) {
+            return AABBTreeStats.EMPTY;
+        }
+        var rootArea = this.area(this.root);
+        var nodeCount = 0;
+        double cost = 0;
+        var stack = TraversalStack.get();
+        var mark = stack.mark();
+        try {
+            stack.push(this.root);
+            while (stack.hasAbove(mark)) {
+                var node = stack.pop();
+                var area = rootArea > 0 ? this.area(node) / rootArea : 1D;
+                nodeCount++;
+                if (this.isLeaf(node)) {
+                    cost += area * AABBTreeStats.INTERSECTION_COST;
+                } else {
+                    cost += area * AABBTreeStats.TRAVERSAL_COST;
+                    stack.push(this.lefts[node]);
+                    stack.push(this.rights[node]);
+                }
+            }
+        } finally {
+            stack.reset(mark);
+        }
+        return new AABBTreeStats(this.heights[this.root] + 1, nodeCount, this.leafCount, cost);
+    }
+
+    private void insertLeaf(int leaf) {
+        if (this.root == NULL_NODE) {
+            this.root = leaf;
+            this.parents[leaf] = NULL_NODE;
+            return;
+        }
+
+        // Descend to the best sibling for the new leaf, at each step comparing the cost of pairing the leaf with the
+        // current node against the cheapest cost of pushing it down into either child.
+        var b = leaf * 6;
+        double minX = this.bounds[b + MIN_X], minY = this.bounds[b + MIN_Y], minZ = this.bounds[b + MIN_Z];
+        double maxX = this.bounds[b + MAX_X], maxY = this.bounds[b + MAX_Y], maxZ = this.bounds[b + MAX_Z];
+        var index = this.root;
+        while (!this.isLeaf(index)) {
+            var area = this.area(index);
+            var combinedArea = this.unionArea(index, minX, minY, minZ, maxX, maxY, maxZ);
+            var cost = 2D * combinedArea;
+            // Every node above a child grows by the same amount as this node, whichever child we descend into.
+            var inheritedCost = 2D * (combinedArea - area);
+            var leftCost = this.descentCost(this.lefts[index], minX, minY, minZ, maxX, maxY, maxZ) + inheritedCost;
+            var rightCost = this.descentCost(this.rights[index], minX, minY, minZ, maxX, maxY, maxZ) + inheritedCost;
+            if (cost < leftCost && cost < rightCost) {
+                break;
+            }
+            index = leftCost < rightCost ? this.lefts[index] : this.rights[index];
+        }
+
+        // Replace the sibling with a new parent holding both the sibling and the leaf.
+        var sibling = index;
+        var oldParent = this.parents[sibling];
+        var newParent = this.allocateNode();
+        this.parents[newParent] = oldParent;
+        this.items[newParent] = null;
+        this.heights[newParent] = this.heights[sibling] + 1;
+        this.lefts[newParent] = sibling;
+        this.rights[newParent] = leaf;
+        this.parents[sibling] = newParent;
+        this.parents[leaf] = newParent;
+        this.setUnion(newParent, sibling, leaf);
+        if (oldParent == NULL_NODE) {
+            this.root = newParent;
+        } else if (this.lefts[oldParent] == sibling) {
+            this.lefts[oldParent] = newParent;
+        } else {
+            this.rights[oldParent] = newParent;
+        }
+
+        this.fixUpwards(this.parents[leaf]);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == this.root) {
+            this.root = NULL_NODE;
+            return;
+        }
+
+        // Remove the parent of the leaf, moving the sibling of the leaf up to take its place.
+        var parent = this.parents[leaf];
+        var grandParent = this.parents[parent];
+        var sibling = this.lefts[parent] == leaf ? this.rights[parent] : this.lefts[parent];
+        if (grandParent == NULL_NODE) {
+            this.root = sibling;
+            this.parents[sibling] = NULL_NODE;
+            this.freeNode(parent);
+            return;
+        }
+        if (this.lefts[grandParent] == parent) {
+            this.lefts[grandParent] = sibling;
+        } else {
+            this.rights[grandParent] = sibling;
+        }
+        this.parents[sibling] = grandParent;
+        this.freeNode(parent);
+        this.fixUpwards(grandParent);
+    }
+
+    /**
+     * Walks from the given node to the root, rebalancing each node and recalculating its height and bounds.
+     */
+    private void fixUpwards(int index) {
+        while (index != NULL_NODE) {
+            index = this.balance(index);
+            var left = this.lefts[index];
+            var right = this.rights[index];
+            this.heights[index] = 1 + Math.max(this.heights[left], this.heights[right]);
+            this.setUnion(index, left, right);
+            index = this.parents[index];
+        }
+    }
+
+    /**
+     * Performs a left or right rotation if the given node is imbalanced, returning the index of the new root of the subtree.
+     * <p>
+     * A node is imbalanced when the height of one child exceeds the other by more than one, in which case the taller child
+     * is rotated up to take its place and the shorter of the taller child's children is moved across to the other side.
+     */
+    private int balance(int a) {
+        if (this.isLeaf(a) || this.heights[a] < 2) {
+            return a;
+        }
+
+        var b = this.lefts[a];
+        var c = this.rights[a];
+        var balance = this.heights[c] - this.heights[b];
+        if (balance > 1) {
+            return this.rotateUp(a, c, b, false);
+        }
+        if (balance < -1) {
+            return this.rotateUp(a, b, c, true);
+        }
+        return a;
+    }
+
+    /**
+     * Rotates the given child of the given node up to take its place.
+     *
+     * @param a         the imbalanced node.
+     * @param child     the taller child of the node, which becomes the new root of the subtree.
+     * @param other     the shorter child of the node, which stays where it is.
+     * @param childLeft whether the taller child is the left child of the node.
+     * @return the index of the new root of the subtree.
+     */
+    private int rotateUp(int a, int child, int other, boolean childLeft) {
+        var f = this.lefts[child];
+        var g = this.rights[child];
+
+        // The taller child takes the place of the imbalanced node in the tree.
+        var parent = this.parents[a];
+        this.parents[child] = parent;
+        this.parents[a] = child;
+        if (parent == NULL_NODE) {
+            this.root = child;
+        } else if (this.lefts[parent] == a) {
+            this.lefts[parent] = child;
+        } else {
+            this.rights[parent] = child;
+        }
+
+        // The taller grandchild stays with the rotated child, the shorter one is given to the imbalanced node.
+        var keep = this.heights[f] > this.heights[g] ? f : g;
+        var give = keep == f ? g : f;
+        this.lefts[child] = a;
+        this.rights[child] = keep;
+        if (childLeft) {
+            this.lefts[a] = give;
+        } else {
+            this.rights[a] = give;
+        }
+        this.parents[give] = a;
+
+        this.setUnion(a, this.lefts[a], this.rights[a]);
+        this.setUnion(child, a, keep);
+        this.heights[a] = 1 + Math.max(this.heights[this.lefts[a]], this.heights[this.rights[a]]);
+        this.heights[child] = 1 + Math.max(this.heights[a], this.heights[keep]);
+        return child;
+    }
+
+    /**
+     * Gets the cost of descending into the given node when inserting a leaf with the given bounds.
+     */
+    private double descentCost(int node, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        var combinedArea = this.unionArea(node, minX, minY, minZ, maxX, maxY, maxZ);
+        if (this.isLeaf(node)) {
+            return combinedArea;
+        }
+        return combinedArea - this.area(node);
+    }
+
+    private double area(int node) {
+        var b = node * 6;
+        return AABBTreeStats.surfaceArea(
+                this.bounds[b + MAX_X] - this.bounds[b + MIN_X],
+                this.bounds[b + MAX_Y] - this.bounds[b + MIN_Y],
+                this.bounds[b + MAX_Z] - this.bounds[b + MIN_Z]
+        );
+    }
+
+    private double unionArea(int node, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        var b = node * 6;
+        return AABBTreeStats.surfaceArea(
+                Math.max(maxX, this.bounds[b + MAX_X]) - Math.min(minX, this.bounds[b + MIN_X]),
+                Math.max(maxY, this.bounds[b + MAX_Y]) - Math.min(minY, this.bounds[b + MIN_Y]),
+                Math.max(maxZ, this.bounds[b + MAX_Z]) - Math.min(minZ, this.bounds[b + MIN_Z])
+        );
+    }
+
+    private void setBounds(int node, AABB box) {
+        var b = node * 6;
+        this.bounds[b + MIN_X] = box.minX();
+        this.bounds[b + MIN_Y] = box.minY();
+        this.bounds[b + MIN_Z] = box.minZ();
+        this.bounds[b + MAX_X] = box.maxX();
+        this.bounds[b + MAX_Y] = box.maxY();
+        this.bounds[b + MAX_Z] = box.maxZ();
+    }
+
+    private void setUnion(int node, int left, int right) {
+        int b = node * 6, l = left * 6, r = right * 6;
+        for (var i = 0; i < 3; i++) {
+            this.bounds[b + MIN_X + i] = Math.min(this.bounds[l + MIN_X + i], this.bounds[r + MIN_X + i]);
+            this.bounds[b + MAX_X + i] = Math.max(this.bounds[l + MAX_X + i], this.bounds[r + MAX_X + i]);
+        }
+    }
+
+    private boolean overlaps(int node, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        var b = node * 6;
+        return maxX >= this.bounds[b + MIN_X] && minX <= this.bounds[b + MAX_X] &&
+                maxY >= this.bounds[b + MIN_Y] && minY <= this.bounds[b + MAX_Y] &&
+                maxZ >= this.bounds[b + MIN_Z] && minZ <= this.bounds[b + MAX_Z];
+    }
+
+    private boolean isLeaf(int node) {
+        return this.lefts[node] == NULL_NODE;
+    }
+
+    private void checkLeaf(int handle) {
+        if (handle < 0 || handle >= this.allocated || this.heights[handle] != 0 || !this.isLeaf(handle)) {
+            throw new IllegalArgumentException("Invalid handle " + handle);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T item(int node) {
+        return (T) this.items[node];
+    }
+
+    private int allocateNode() {
+        if (this.freeList == NULL_NODE) {
+            if (this.allocated == this.capacity) {
+                this.allocate(this.capacity * 2);
+            }
+            var node = this.allocated++;
+            this.lefts[node] = NULL_NODE;
+            this.rights[node] = NULL_NODE;
+            return node;
+        }
+        // Free nodes are chained together through their parent index.
+        var node = this.freeList;
+        this.freeList = this.parents[node];
+        this.lefts[node] = NULL_NODE;
+        this.rights[node] = NULL_NODE;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        this.parents[node] = this.freeList;
+        this.heights[node] = -1;
+        this.items[node] = null;
+        this.freeList = node;
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.bounds = this.bounds == null ? new double[capacity * 6] : Arrays.copyOf(this.bounds, capacity * 6);
+        this.parents = this.parents == null ? new int[capacity] : Arrays.copyOf(this.parents, capacity);
+        this.lefts = this.lefts == null ? new int[capacity] : Arrays.copyOf(this.lefts, capacity);
+        this.rights = this.rights == null ? new int[capacity] : Arrays.copyOf(this.rights, capacity);
+        this.heights = this.heights == null ? new int[capacity] : Arrays.copyOf(this.heights, capacity);
+        this.items = this.items == null ? new Object[capacity] : Arrays.copyOf(this.items, capacity);
+    }
+
+    /**
+     * Lazily walks the tree for a stream, streams can be consumed at any time on any thread so this keeps its own stack.
+     * <p>
+     * Modifying the tree while a stream from it is being consumed will produce undefined results.
+     */
+    private class SearchSpliterator extends Spliterators.AbstractSpliterator<T> {
+
+        private final double minX, minY, minZ, maxX, maxY, maxZ;
+        private final int[] stack = new int[DynamicAABBTree.this.heights[DynamicAABBTree.this.root] + 2];
+        private int top;
+
+        private SearchSpliterator(AABB box) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.minX = box.minX();
+            this.minY = box.minY();
+            this.minZ = box.minZ();
+            this.maxX = box.maxX();
+            this.maxY = box.maxY();
+            this.maxZ = box.maxZ();
+            this.stack[this.top++] = DynamicAABBTree.this.root;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            var tree = DynamicAABBTree.this;
+            while (this.top > 0) {
+                var node = this.stack[--this.top];
+                if (!tree.overlaps(node, this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ)) {
+                    continue;
+                }
+                if (tree.isLeaf(node)) {
+                    action.accept(tree.item(node));
+                    return true;
+                }
+                this.stack[this.top++] = tree.rights[node];
+                this.stack[this.top++] = tree.lefts[node];
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.tridevmc.architecture.core.physics;
+
+/**
+ * Maps the bounds of elements found by a grid query to the range of grid cells they touch, shared by every tree implementation.
+ *
+ * @param <T> The type of data stored in the tree being queried.
+ */
+final class GridQuery<T> {
+
+    private final double originX, originY, originZ;
+    private final double cellSize;
+    private final int countX, countY, countZ;
+    private final IAABBTree.GridVisitor<? super T> visitor;
+
+    GridQuery(AABB bounds, double cellSize, IAABBTree.GridVisitor<? super T> visitor) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive, got " + cellSize);
+        }
+        this.originX = bounds.minX();
+        this.originY = bounds.minY();
+        this.originZ = bounds.minZ();
+        this.cellSize = cellSize;
+        this.countX = cellCount(bounds.getXSize(), cellSize);
+        this.countY = cellCount(bounds.getYSize(), cellSize);
+        this.countZ = cellCount(bounds.getZSize(), cellSize);
+        this.visitor = visitor;
+    }
+
+    private static int cellCount(double size, double cellSize) {
+        return Math.max(1, (int) Math.ceil(size / cellSize - 1E-9));
+    }
+
+    /**
+     * Passes the given element to the visitor along with every cell its bounds touch, including cells it only shares a face with.
+     */
+    void visit(T element, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        var cMinX = this.minCell(minX, this.originX, this.countX);
+        var cMinY = this.minCell(minY, this.originY, this.countY);
+        var cMinZ = this.minCell(minZ, this.originZ, this.countZ);
+        var cMaxX = this.maxCell(maxX, this.originX, this.countX);
+        var cMaxY = this.maxCell(maxY, this.originY, this.countY);
+        var cMaxZ = this.maxCell(maxZ, this.originZ, this.countZ);
+        if (cMinX > cMaxX || cMinY > cMaxY || cMinZ > cMaxZ) {
+            return;
+        }
+        this.visitor.visit(element, cMinX, cMinY, cMinZ, cMaxX, cMaxY, cMaxZ);
+    }
+
+    private int minCell(double min, double origin, int count) {
+        // A box starting exactly on a boundary also touches the cell before it.
+        var cell = (int) Math.ceil((min - origin) / this.cellSize) - 1;
+        return Math.max(0, Math.min(count - 1, cell));
+    }
+
+    private int maxCell(double max, double origin, int count) {
+        var cell = (int) Math.floor((max - origin) / this.cellSize);
+        return Math.max(0, Math.min(count - 1, cell));
+    }
+
+}
@@ -1,8 +1,12 @@
 package com.tridevmc.architecture.core.physics;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
@@ -21,14 +25,68 @@ public interface IAABBTree<T> {
     @NotNull
     Stream<T> searchStream(@NotNull AABB box);
 
+    /**
+     * Walks the tree front to back along the given ray, passing every element whose bounds the ray passes through to the given consumer.
+     *
+     * @param ray      The ray to trace.
+     * @param maxT     The maximum distance along the ray to trace, in multiples of the ray direction.
+     * @param consumer The consumer to pass each element to.
+     */
+    void forEachAlongRay(@NotNull Ray ray, double maxT, @NotNull Consumer<? super T> consumer);
+
+    /**
+     * Finds the element closest to the origin of the given ray that the ray hits.
+     * <p>
+     * Nodes are visited front to back, and any node entered beyond the closest hit found so far is skipped.
+     *
+     * @param ray  The ray to trace.
+     * @param maxT The maximum distance along the ray to trace, in multiples of the ray direction.
+     * @param test The test used to intersect the ray with each element.
+     * @return The closest hit, or null if the ray doesn't hit anything within the given distance.
+     */
+    @Nullable
+    RayHit<T> closestHit(@NotNull Ray ray, double maxT, @NotNull RayTest<? super T> test);
+
+    /**
+     * Checks if the given ray hits any element within the given distance, stopping at the first hit found.
+     *
+     * @param ray  The ray to trace.
+     * @param maxT The maximum distance along the ray to trace, in multiples of the ray direction.
+     * @param test The test used to intersect the ray with each element.
+     * @return True if the ray hits any element, false otherwise.
+     */
+    boolean anyHit(@NotNull Ray ray, double maxT, @NotNull RayTest<? super T> test);
+
+    /**
+     * Walks the tree once, passing every element that intersects the given bounds to the given visitor along with the range
+     * of cells it touches in a grid of cubic cells laid over the bounds.
+     * <p>
+     * Much cheaper than querying each cell on its own, as neighbouring cells would walk almost exactly the same nodes.
+     * The range is based only on the bounds of the element, and includes cells that merely share a face with them,
+     * so visitors should perform their own precise test against each cell.
+     *
+     * @param bounds   The bounds of the grid, cell (0, 0, 0) starts at the minimum corner.
+     * @param cellSize The size of each cell in the grid.
+     * @param visitor  The visitor to pass each element and its range of cells to.
+     */
+    void queryGrid(@NotNull AABB bounds, double cellSize, @NotNull GridVisitor<? super T> visitor);
+
     /**
      * Gets the bounds of the tree.
      *
-     * @return The bounds of the tree.
+     * @return The bounds of the tree, or {@link AABB#EMPTY} if it has no elements.
      */
     @NotNull
     AABB getBounds();
 
+    /**
+     * Gets statistics describing the shape of the tree, such as its depth and SAH cost.
+     *
+     * @return The statistics of the tree.
+     */
+    @NotNull
+    AABBTreeStats getStats();
+
     /**
      * Searches the tree for all elements that intersect the given AABB.
      *
@@ -37,7 +95,95 @@ public interface IAABBTree<T> {
      */
     @NotNull
     default List<T> search(@NotNull AABB box) {
-        return this.searchStream(box).toList();
+        var out = new ArrayList<T>();
+        this.forEachIntersecting(box, out::add);
+        return out;
+    }
+
+    /**
+     * Passes every element that intersects the given box to the given consumer.
+     * <p>
+     * Implementations should avoid allocating while walking the tree, making this the preferred way to visit results.
+     *
+     * @param box      The AABB to search for.
+     * @param consumer The consumer to pass each intersecting element to.
+     */
+    default void forEachIntersecting(@NotNull AABB box, @NotNull Consumer<? super T> consumer) {
+        this.searchStream(box).forEach(consumer);
+    }
+
+    /**
+     * Checks if any element that intersects the given box matches the given predicate, stopping as soon as one does.
+     *
+     * @param box       The AABB to search for.
+     * @param predicate The predicate to test each intersecting element with.
+     * @return True if any intersecting element matches the predicate, false otherwise.
+     */
+    default boolean anyIntersecting(@NotNull AABB box, @NotNull Predicate<? super T> predicate) {
+        return this.searchStream(box).anyMatch(predicate);
+    }
+
+    /**
+     * Counts the elements that intersect the given box.
+     *
+     * @param box The AABB to search for.
+     * @return The number of elements that intersect the given box.
+     */
+    default int countIntersecting(@NotNull AABB box) {
+        return (int) this.searchStream(box).count();
+    }
+
+    /**
+     * Intersects a ray with a single element of a tree.
+     *
+     * @param <T> The type of data stored in the tree.
+     */
+    @FunctionalInterface
+    interface RayTest<T> {
+
+        /**
+         * Intersects the given ray with the given element.
+         *
+         * @param element The element to intersect with.
+         * @param ray     The ray to intersect.
+         * @return The distance along the ray to the hit in multiples of the ray direction, or NaN if the ray misses the element.
+         */
+        double intersect(T element, Ray ray);
+
+    }
+
+    /**
+     * Receives the elements found by a grid query.
+     *
+     * @param <T> The type of data stored in the tree.
+     */
+    @FunctionalInterface
+    interface GridVisitor<T> {
+
+        /**
+         * Visits an element along with the inclusive range of grid cells its bounds touch, clamped to the grid.
+         *
+         * @param element The element found in the grid.
+         * @param minX    The index of the first cell touched on the X axis.
+         * @param minY    The index of the first cell touched on the Y axis.
+         * @param minZ    The index of the first cell touched on the Z axis.
+         * @param maxX    The index of the last cell touched on the X axis.
+         * @param maxY    The index of the last cell touched on the Y axis.
+         * @param maxZ    The index of the last cell touched on the Z axis.
+         */
+        void visit(T element, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+
+    }
+
+    /**
+     * A record representing a hit between a ray and an element of a tree.
+     *
+     * @param element  The element that was hit.
+     * @param distance The distance along the ray to the hit, in multiples of the ray direction.
+     * @param <T>      The type of data stored in the tree.
+     */
+    record RayHit<T>(T element, double distance) {
+
     }
 
 }
@@ -56,4 +56,61 @@ public class PhysicsHelper {
         return Math.max(-maxProjection, minProjection) > r;
     }
 
+    /**
+     * Tests a ray against an axis-aligned box using the slab method, returning the distance along the ray at which it enters the box.
+     * <p>
+     * Takes the reciprocal of the ray direction so it can be calculated once per query rather than once per box.
+     * Components of the direction that are zero should have a reciprocal of positive infinity, the resulting NaN
+     * values from rays lying on a slab boundary are treated as inside the slab.
+     *
+     * @param minX the minimum X of the box.
+     * @param minY the minimum Y of the box.
+     * @param minZ the minimum Z of the box.
+     * @param maxX the maximum X of the box.
+     * @param maxY the maximum Y of the box.
+     * @param maxZ the maximum Z of the box.
+     * @param oX   the X coordinate of the ray origin.
+     * @param oY   the Y coordinate of the ray origin.
+     * @param oZ   the Z coordinate of the ray origin.
+     * @param invX the reciprocal of the X component of the ray direction.
+     * @param invY the reciprocal of the Y component of the ray direction.
+     * @param invZ the reciprocal of the Z component of the ray direction.
+     * @param maxT the maximum distance along the ray to consider.
+     * @return the distance along the ray at which it enters the box, 0 if the origin is inside the box, or NaN if the ray misses the box.
+     */
+    public static double intersectRaySlab(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                                          double oX, double oY, double oZ, double invX, double invY, double invZ,
+                                          double maxT) {
+        var tNear = 0D;
+        var tFar = maxT;
+
+        var t1 = (minX - oX) * invX;
+        var t2 = (maxX - oX) * invX;
+        // Comparisons against NaN are always false, so an undefined slab leaves the interval untouched.
+        if (Math.min(t1, t2) > tNear) tNear = Math.min(t1, t2);
+        if (Math.max(t1, t2) < tFar) tFar = Math.max(t1, t2);
+
+        t1 = (minY - oY) * invY;
+        t2 = (maxY - oY) * invY;
+        if (Math.min(t1, t2) > tNear) tNear = Math.min(t1, t2);
+        if (Math.max(t1, t2) < tFar) tFar = Math.max(t1, t2);
+
+        t1 = (minZ - oZ) * invZ;
+        t2 = (maxZ - oZ) * invZ;
+        if (Math.min(t1, t2) > tNear) tNear = Math.min(t1, t2);
+        if (Math.max(t1, t2) < tFar) tFar = Math.max(t1, t2);
+
+        return tNear <= tFar ? tNear : Double.NaN;
+    }
+
+    /**
+     * Calculates the reciprocal of a ray direction component for use with {@link #intersectRaySlab}.
+     *
+     * @param component the component of the ray direction.
+     * @return the reciprocal of the component, or positive infinity if the component is zero.
+     */
+    public static double inverseDirection(double component) {
+        return component == 0 ? Double.POSITIVE_INFINITY : 1D / component;
+    }
+
 }
@@ -7,6 +7,7 @@ import com.tridevmc.architecture.core.model.mesh.IMesh;
 import com.tridevmc.architecture.core.model.mesh.IPolygon;
 import com.tridevmc.architecture.core.model.mesh.IPolygonData;
 
+import java.util.ArrayList;
 import java.util.stream.Stream;
 
 /**
@@ -44,8 +45,26 @@ public record Ray(IVector3Immutable origin, IVector3Immutable direction) {
      * @return a stream of hits or failed hits.
      */
     public <I, D extends IPolygonData<D>> Stream<Hit> intersectUnfiltered(IMesh<I, D> mesh) {
-        return mesh.getAABBTree().searchStream(new AABB(this.origin, this.origin.add(this.direction.mul(1000D))))
-                .map(this::intersect);
+        var hits = new ArrayList<Hit>();
+        mesh.getAABBTree().forEachAlongRay(this, Double.POSITIVE_INFINITY, p -> hits.add(this.intersect(p)));
+        return hits.stream();
+    }
+
+    /**
+     * Attempts to intersect this ray with the given polygon, returning the distance along the ray to the point of intersection.
+     * <p>
+     * Suitable for use as a {@link IAABBTree.RayTest} when tracing rays through a tree of polygons.
+     *
+     * @param poly the polygon to intersect with.
+     * @return the distance along the ray in multiples of the ray direction, or NaN if there is no intersection.
+     */
+    public double intersectDistance(IPolygon<?> poly) {
+        var point = poly.intersect(this);
+        if (point == null) {
+            return Double.NaN;
+        }
+        return this.direction.dot(point.x() - this.origin.x(), point.y() - this.origin.y(), point.z() - this.origin.z())
+                / this.direction.lengthSquared();
     }
 
     /**
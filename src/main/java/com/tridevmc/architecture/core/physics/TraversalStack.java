@@ -0,0 +1,91 @@
+package com.tridevmc.architecture.core.physics;
+
+import java.util.Arrays;
+
+/**
+ * A per-thread stack of node indices used when walking array backed trees, so queries don't need to allocate.
+ * <p>
+ * Queries may be nested (a callback from one query can start another on the same thread), so each query records
+ * the height of the stack when it starts and only ever pops down to that height, restoring it when it finishes.
+ */
+final class TraversalStack {
+
+    private static final ThreadLocal<TraversalStack> STACKS = ThreadLocal.withInitial(TraversalStack::new);
+
+    private int[] data = new int[64];
+    private double[] keys = new double[64];
+    private int top;
+
+    private TraversalStack() {
+    }
+
+    /**
+     * Gets the stack for the current thread.
+     *
+     * @return the stack for the current thread.
+     */
+    static TraversalStack get() {
+        return STACKS.get();
+    }
+
+    /**
+     * Gets the current height of the stack, to be passed back to {@link #reset(int)} once the query is complete.
+     *
+     * @return the current height of the stack.
+     */
+    int mark() {
+        return this.top;
+    }
+
+    /**
+     * Checks if the stack has any entries above the given height.
+     *
+     * @param mark the height the current query started at.
+     * @return true if there are entries left for the current query, false otherwise.
+     */
+    boolean hasAbove(int mark) {
+        return this.top > mark;
+    }
+
+    void push(int value) {
+        if (this.top == this.data.length) {
+            this.data = Arrays.copyOf(this.data, this.data.length * 2);
+            this.keys = Arrays.copyOf(this.keys, this.keys.length * 2);
+        }
+        this.data[this.top++] = value;
+    }
+
+    /**
+     * Pushes a value along with a sort key, such as the distance along a ray at which a node is entered.
+     *
+     * @param value the value to push.
+     * @param key   the key to store alongside the value, retrieved with {@link #peekKey()}.
+     */
+    void push(int value, double key) {
+        this.push(value);
+        this.keys[this.top - 1] = key;
+    }
+
+    /**
+     * Gets the key stored with the value on top of the stack, must be called before the value is popped.
+     *
+     * @return the key stored with the top value.
+     */
+    double peekKey() {
+        return this.keys[this.top - 1];
+    }
+
+    int pop() {
+        return this.data[--this.top];
+    }
+
+    /**
+     * Discards every entry above the given height, used when a query finishes or exits early.
+     *
+     * @param mark the height the current query started at.
+     */
+    void reset(int mark) {
+        this.top = mark;
+    }
+
+}